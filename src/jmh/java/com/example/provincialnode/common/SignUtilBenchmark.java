@@ -0,0 +1,89 @@
+package com.example.provincialnode.common;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.SmUtil;
+import cn.hutool.crypto.asymmetric.SM2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名、验签基准测试
+ * 覆盖签名节点、验签节点调用的SignUtil.signData和SignUtil.verifySignature，报文大小从1KB到5MB
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignUtilBenchmark {
+
+    @Param({"1024", "16384", "262144", "1048576", "5242880"})
+    private int payloadSize;
+
+    private String content;
+
+    private String signPrivateKey;
+
+    private String verifyPublicKey;
+
+    private String encryptPublicKey;
+
+    private String decryptPrivateKey;
+
+    private Map<String, Object> signature;
+
+    private String encryptedData;
+
+    @Setup
+    public void setUp() throws Exception {
+        SM2 signKeyPair = SmUtil.sm2();
+        SM2 encryptKeyPair = SmUtil.sm2();
+        signPrivateKey = signKeyPair.getPrivateKeyBase64();
+        verifyPublicKey = signKeyPair.getPublicKeyBase64();
+        encryptPublicKey = encryptKeyPair.getPublicKeyBase64();
+        decryptPrivateKey = encryptKeyPair.getPrivateKeyBase64();
+        content = BenchmarkPayloads.json(payloadSize);
+        signature = SignUtil.signData(content, signPrivateKey, encryptPublicKey);
+        encryptedData = signature.get("encryptedData").toString();
+    }
+
+    @Benchmark
+    public Map<String, Object> signData() throws Exception {
+        return SignUtil.signData(content, signPrivateKey, encryptPublicKey);
+    }
+
+    @Benchmark
+    public String verifySignature() throws Exception {
+        return SignUtil.verifySignature(signature, encryptedData, verifyPublicKey, decryptPrivateKey);
+    }
+
+    /**
+     * 基准测试报文
+     */
+    static final class BenchmarkPayloads {
+
+        private BenchmarkPayloads() {
+        }
+
+        /**
+         * 生成指定大小的JSON报文
+         * @param size 报文大小（字节）
+         * @return JSON报文
+         */
+        static String json(int size) {
+            StringBuilder builder = new StringBuilder(size + 64).append('[');
+            while (builder.length() < size) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append("{\"uniscId\":\"").append(RandomUtil.randomNumbers(18))
+                        .append("\",\"name\":\"").append(RandomUtil.randomString(16))
+                        .append("\",\"address\":\"").append(RandomUtil.randomString(32)).append("\"}");
+            }
+            return builder.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.provincialnode.common;
+
+import cn.hutool.crypto.SmUtil;
+import cn.hutool.crypto.asymmetric.SM2;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SM2密钥解析基准测试
+ * 比较每次从Base64密钥字符串解析SM2实例与SignUtil使用缓存的密钥参数创建SM2实例的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Sm2KeyBenchmark {
+
+    private String privateKey;
+
+    private String publicKey;
+
+    @Setup
+    public void setUp() {
+        SM2 keyPair = SmUtil.sm2();
+        privateKey = keyPair.getPrivateKeyBase64();
+        publicKey = keyPair.getPublicKeyBase64();
+    }
+
+    @Benchmark
+    public SM2 parsePrivateKey() {
+        return new SM2(privateKey, null);
+    }
+
+    @Benchmark
+    public SM2 parsePublicKey() {
+        return new SM2(null, publicKey);
+    }
+
+    @Benchmark
+    public SM2 cachedPrivateKey() {
+        return SignUtil.privateKeySm2(privateKey);
+    }
+
+    @Benchmark
+    public SM2 cachedPublicKey() {
+        return SignUtil.publicKeySm2(publicKey);
+    }
+}
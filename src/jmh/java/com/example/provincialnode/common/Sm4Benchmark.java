@@ -0,0 +1,49 @@
+package com.example.provincialnode.common;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.Mode;
+import cn.hutool.crypto.Padding;
+import cn.hutool.crypto.symmetric.SM4;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SM4 ECB加解密基准测试
+ * 与SignUtil一致：每条报文随机生成16位秘钥，使用ECB/PKCS5Padding加密
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Sm4Benchmark {
+
+    @Param({"1024", "16384", "262144", "1048576", "5242880"})
+    private int payloadSize;
+
+    private byte[] key;
+
+    private byte[] content;
+
+    private byte[] encrypted;
+
+    @Setup
+    public void setUp() {
+        key = RandomUtil.randomString(16).getBytes(StandardCharsets.UTF_8);
+        content = SignUtilBenchmark.BenchmarkPayloads.json(payloadSize).getBytes(StandardCharsets.UTF_8);
+        encrypted = new SM4(Mode.ECB, Padding.PKCS5Padding, key).encrypt(content);
+    }
+
+    @Benchmark
+    public byte[] encrypt() {
+        return new SM4(Mode.ECB, Padding.PKCS5Padding, key).encrypt(content);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return new SM4(Mode.ECB, Padding.PKCS5Padding, key).decrypt(encrypted);
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.provincialnode.processor;
+
+import ch.qos.logback.classic.Level;
+import com.example.provincialnode.common.VirtualThreads;
+import com.example.provincialnode.common.trace.Tracer;
+import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
+import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.processor.plan.ProcessPlanCache;
+import com.example.provincialnode.service.ProcessExecutionJournal;
+import com.example.provincialnode.service.RequestLogWriter;
+import com.example.provincialnode.service.SysProcessNodeConfigService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 流程引擎基准测试
+ * 通过ProcessEngine执行与接口流程结构一致的流程（验签 -> 令牌校验、参数校验 -> 全国节点请求 -> 字段名称转换），
+ * 每次调用模拟200个并发请求（与Tomcat默认最大线程数一致），比较平台线程与虚拟线程、串行与并行执行、阻塞与异步全国节点请求的吞吐量
+ * 全国节点以固定耗时的桩节点代替：blocking在节点执行线程中等待，async在调度线程计时后由响应线程池完成；
+ * 执行记录和请求日志的写入不在测试范围内，以不记录调用的桩对象代替
+ * 虚拟线程需要JDK 21及以上，低版本JDK自动使用平台线程池
+ * 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="ProcessEngineBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessEngineBenchmark {
+
+    private static final String PROCESS_CODE = "PROCESS_BENCHMARK";
+
+    // 每次调用的并发请求数
+    private static final int CONCURRENT_REQUESTS = 200;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"false", "true"})
+    private boolean parallelEnabled;
+
+    @Param({"blocking", "async"})
+    private String transport;
+
+    // 全国节点响应耗时(毫秒)
+    @Param({"20"})
+    private long nationalLatencyMs;
+
+    private ProcessEngine processEngine;
+
+    // 模拟Tomcat请求线程
+    private ExecutorService requestExecutor;
+
+    // 模拟异步客户端IO线程，只负责计时
+    private ScheduledExecutorService responseScheduler;
+
+    // 模拟全国节点响应处理线程池
+    private ExecutorService responseExecutor;
+
+    private Map<String, Object> requestParams;
+
+    @Setup
+    public void setUp() {
+        // 流程引擎每次执行均输出INFO日志，避免控制台输出影响测试结果
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        requestExecutor = VirtualThreads.newExecutor(virtualThreads, "benchmark-request-", () -> Executors.newFixedThreadPool(CONCURRENT_REQUESTS));
+        responseScheduler = Executors.newSingleThreadScheduledExecutor();
+        responseExecutor = VirtualThreads.newExecutor(virtualThreads, "benchmark-response-", () -> new ThreadPoolExecutor(
+                Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1000),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        ));
+
+        Map<String, Node> nodeMap = new HashMap<>();
+        nodeMap.put("verifyNode", new BenchmarkNode("verifyNode", true, context -> {
+            context.setAppKey((String) context.getRequestParams().get("appKey"));
+            return null;
+        }));
+        nodeMap.put("tokenValidateNode", new BenchmarkNode("tokenValidateNode", false,
+                context -> "token-" + context.getAppKey()));
+        nodeMap.put("paramValidateNode", new BenchmarkNode("paramValidateNode", false,
+                context -> new HashMap<>(context.getRequestParams())));
+        nodeMap.put("nationalNodeRequestNode", new NationalNodeStub());
+        nodeMap.put("fieldNameConvertNode", new BenchmarkNode("fieldNameConvertNode", false, context -> {
+            Map<String, Object> nationalResponse = context.getAttributeByParamName(Node.inParamName);
+            Map<String, Object> converted = new HashMap<>();
+            nationalResponse.forEach((key, value) -> converted.put("converted_" + key, value));
+            return converted;
+        }));
+        SysProcessNodeConfigService processNodeConfigService = mock(SysProcessNodeConfigService.class, withSettings().stubOnly());
+        when(processNodeConfigService.getEnabledNodesByProcessCode(PROCESS_CODE)).thenReturn(Arrays.asList(
+                nodeConfig("verifyNode", null),
+                nodeConfig("tokenValidateNode", "{\"outParamName\": \"token\"}"),
+                nodeConfig("paramValidateNode", "{\"outParamName\": \"validParams\"}"),
+                nodeConfig("nationalNodeRequestNode", "{\"inParamName\": \"validParams\", \"outParamName\": \"nationalResponse\", \"dependsOn\": [\"tokenValidateNode\"]}"),
+                nodeConfig("fieldNameConvertNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"convertedResponse\"}")
+        ));
+        ProcessPlanCache processPlanCache = new ProcessPlanCache();
+        ReflectionTestUtils.setField(processPlanCache, "processNodeConfigService", processNodeConfigService);
+        ReflectionTestUtils.setField(processPlanCache, "nodeMap", nodeMap);
+
+        // 执行记录和请求日志只保留调用，不记录调用历史
+        ProcessExecutionJournal executionJournal = mock(ProcessExecutionJournal.class, withSettings().stubOnly());
+        SysProcessExecutionRecordEntity record = new SysProcessExecutionRecordEntity();
+        record.setExecutionId("benchmark-execution");
+        when(executionJournal.begin(any(), any(), any(), any())).thenReturn(record);
+        ProcessMetrics processMetrics = new ProcessMetrics();
+        ReflectionTestUtils.setField(processMetrics, "meterRegistry", new SimpleMeterRegistry());
+
+        processEngine = new ProcessEngine(32, virtualThreads);
+        ReflectionTestUtils.setField(processEngine, "executionJournal", executionJournal);
+        ReflectionTestUtils.setField(processEngine, "processPlanCache", processPlanCache);
+        ReflectionTestUtils.setField(processEngine, "requestLogWriter", mock(RequestLogWriter.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(processEngine, "processMetrics", processMetrics);
+        ReflectionTestUtils.setField(processEngine, "tracer", new Tracer());
+        ReflectionTestUtils.setField(processEngine, "parallelEnabled", parallelEnabled);
+        ReflectionTestUtils.setField(processEngine, "releaseIntermediate", true);
+
+        requestParams = new HashMap<>();
+        requestParams.put("appKey", "city-001");
+        requestParams.put("txnIttChnlId", "C1");
+        requestParams.put("orgCode", "330100");
+        requestParams.put("amount", "12.50");
+    }
+
+    @TearDown
+    public void tearDown() {
+        processEngine.shutdown();
+        requestExecutor.shutdownNow();
+        responseScheduler.shutdownNow();
+        responseExecutor.shutdownNow();
+    }
+
+    /**
+     * 并发执行一批请求，等待全部完成
+     */
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public List<ProcessContext> executeProcess() {
+        List<CompletableFuture<ProcessContext>> futures = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            String requestId = "request-" + i;
+            // 与MainController一致：请求线程调用executeProcessAsync后即返回
+            futures.add(CompletableFuture.supplyAsync(() -> processEngine.executeProcessAsync(PROCESS_CODE, newContext(requestId)), requestExecutor)
+                    .thenCompose(Function.identity()));
+        }
+        List<ProcessContext> results = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (CompletableFuture<ProcessContext> future : futures) {
+            ProcessContext result = future.join();
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("流程执行失败: " + result.getErrorMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private ProcessContext newContext(String requestId) {
+        ProcessContext context = new ProcessContext();
+        context.setRequestId(requestId);
+        context.setInterfaceCode("BENCHMARK");
+        context.setRequestParams(new HashMap<>(requestParams));
+        return context;
+    }
+
+    private static SysProcessNodeConfigEntity nodeConfig(String nodeId, String config) {
+        SysProcessNodeConfigEntity entity = new SysProcessNodeConfigEntity();
+        entity.setProcessCode(PROCESS_CODE);
+        entity.setNodeId(nodeId);
+        entity.setNodeName(nodeId);
+        entity.setNodeConfig(config);
+        return entity;
+    }
+
+    /**
+     * 本地计算节点，输出计算结果
+     */
+    private static class BenchmarkNode implements Node {
+        private final String nodeId;
+        private final boolean barrier;
+        private final Function<ProcessContext, Object> action;
+
+        BenchmarkNode(String nodeId, boolean barrier, Function<ProcessContext, Object> action) {
+            this.nodeId = nodeId;
+            this.barrier = barrier;
+            this.action = action;
+        }
+
+        @Override
+        public boolean execute(ProcessContext context) {
+            Object output = action.apply(context);
+            if (output != null) {
+                context.setAttributeByParamName(Node.outParamName, output);
+            }
+            return true;
+        }
+
+        @Override
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        @Override
+        public String getNodeName() {
+            return nodeId;
+        }
+
+        @Override
+        public boolean isBarrier() {
+            return barrier;
+        }
+    }
+
+    /**
+     * 全国节点桩节点，按transport模拟阻塞客户端或异步客户端
+     */
+    private class NationalNodeStub implements Node {
+
+        @Override
+        public boolean execute(ProcessContext context) {
+            try {
+                Thread.sleep(nationalLatencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return handleResponse(context);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> executeAsync(ProcessContext context) {
+            if (!"async".equals(transport)) {
+                return Node.super.executeAsync(context);
+            }
+            CompletableFuture<Void> response = new CompletableFuture<>();
+            responseScheduler.schedule(() -> response.complete(null), nationalLatencyMs, TimeUnit.MILLISECONDS);
+            return response.thenApplyAsync(v -> handleResponse(context), responseExecutor);
+        }
+
+        private boolean handleResponse(ProcessContext context) {
+            Map<String, Object> validParams = context.getAttributeByParamName(Node.inParamName);
+            Map<String, Object> nationalResponse = new HashMap<>(validParams);
+            nationalResponse.put("resultCode", "00000");
+            context.setAttributeByParamName(Node.outParamName, nationalResponse);
+            return true;
+        }
+
+        @Override
+        public String getNodeId() {
+            return "nationalNodeRequestNode";
+        }
+
+        @Override
+        public String getNodeName() {
+            return "全国节点请求节点";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.provincialnode.common;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 缓存失效总线
+ * 基于Redis发布订阅在多个省级节点实例之间广播缓存变更：变更发生的实例先在本地发布失效事件，再广播到Redis频道；
+ * 其他实例收到消息后在本地发布失效事件，由持有本地缓存的组件清除对应条目
+ * 频道订阅在后台线程中进行，Redis不可用时按重试间隔重试，不阻止应用启动；订阅成功前其他实例的变更只能等待本地缓存过期
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    // 当前实例标识，用于忽略自己发出的消息
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${provincial.node.cache.invalidation-channel:provincial-node:cache-invalidation}")
+    private String channel;
+
+    @Value("${provincial.node.cache.invalidation-retry-interval-ms:5000}")
+    private long retryIntervalMs;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Thread subscriberThread;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        subscriberThread = new Thread(this::subscribeLoop, "cache-invalidation-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscriberThread != null) {
+            subscriberThread.interrupt();
+        }
+    }
+
+    /**
+     * 启动消息监听容器，失败时按重试间隔重试，直到订阅成功或应用停止
+     */
+    private void subscribeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                redisMessageListenerContainer.start();
+                log.info("订阅缓存失效频道: {}, 实例: {}", channel, instanceId);
+                return;
+            } catch (Exception e) {
+                // 重置容器状态，下次重新订阅
+                redisMessageListenerContainer.stop();
+                log.warn("订阅缓存失效频道失败，{}毫秒后重试: {}", retryIntervalMs, e.getMessage());
+            }
+            try {
+                Thread.sleep(retryIntervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 发布缓存失效消息，本实例立即失效，其他实例通过Redis频道失效
+     * @param type 缓存类型
+     * @param key 缓存键，为null时失效该类型的所有条目
+     */
+    public void publish(CacheInvalidationEvent.CacheType type, String key) {
+        CacheInvalidationEvent event = new CacheInvalidationEvent(type, key);
+        eventPublisher.publishEvent(event);
+        JSONObject message = new JSONObject();
+        message.put("source", instanceId);
+        message.put("type", type.name());
+        message.put("key", key);
+        try {
+            stringRedisTemplate.convertAndSend(channel, message.toJSONString());
+            log.info("广播缓存失效消息: {}", event);
+        } catch (Exception e) {
+            log.error("广播缓存失效消息失败: {}, {}", event, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JSONObject body = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8));
+            if (instanceId.equals(body.getString("source"))) {
+                return;
+            }
+            CacheInvalidationEvent event = new CacheInvalidationEvent(
+                    CacheInvalidationEvent.CacheType.valueOf(body.getString("type")), body.getString("key"));
+            log.info("收到缓存失效消息: {}", event);
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("处理缓存失效消息失败: {}", e.getMessage(), e);
+        }
+    }
+}
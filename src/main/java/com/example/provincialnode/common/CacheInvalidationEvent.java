@@ -0,0 +1,46 @@
+package com.example.provincialnode.common;
+
+import lombok.Getter;
+
+/**
+ * 缓存失效事件
+ * 由{@link CacheInvalidationBus}在本实例内发布，持有本地缓存的组件监听后清除对应条目
+ */
+@Getter
+public class CacheInvalidationEvent {
+
+    /**
+     * 缓存类型
+     */
+    public enum CacheType {
+        // 接入机构，键为AppKey
+        ACCESS_ORG,
+        // 接口定义，键为请求路径
+        INTERFACE_DEFINITION,
+        // 流程节点配置，键为流程编码
+        PROCESS_CONFIG
+    }
+
+    private final CacheType type;
+
+    // 缓存键，为null时清除该类型的所有条目
+    private final String key;
+
+    public CacheInvalidationEvent(CacheType type, String key) {
+        this.type = type;
+        this.key = key;
+    }
+
+    /**
+     * 是否清除该类型的所有条目
+     * @return 是否清除全部
+     */
+    public boolean isAll() {
+        return key == null;
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + (key == null ? "*" : key);
+    }
+}
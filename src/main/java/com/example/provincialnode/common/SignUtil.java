@@ -1,9 +1,15 @@
 package com.example.provincialnode.common;
 
 import cn.hutool.core.codec.*;
+import cn.hutool.crypto.ECKeyUtil;
+import cn.hutool.crypto.SecureUtil;
 import cn.hutool.crypto.asymmetric.*;
 import cn.hutool.crypto.symmetric.SM4;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 import java.nio.charset.StandardCharsets;
@@ -17,6 +23,56 @@ public class SignUtil {
         Security.addProvider(new BouncyCastleProvider());
     }
 
+    // 密钥缓存最大数量
+    private static final int KEY_CACHE_SIZE = 1024;
+
+    // 解析后的SM2私钥参数，按密钥字符串缓存，避免每次签名、解密重复解码PKCS8和构建曲线参数
+    private static final Cache<String, ECPrivateKeyParameters> PRIVATE_KEY_CACHE = Caffeine.newBuilder()
+            .maximumSize(KEY_CACHE_SIZE)
+            .build();
+
+    // 解析后的SM2公钥参数，按密钥字符串缓存
+    private static final Cache<String, ECPublicKeyParameters> PUBLIC_KEY_CACHE = Caffeine.newBuilder()
+            .maximumSize(KEY_CACHE_SIZE)
+            .build();
+
+    /**
+     * 创建使用私钥的SM2实例
+     * 密钥参数不可变，从缓存中获取；SM2实例内部加锁，每次调用创建新实例（只设置字段），避免并发请求竞争同一把锁
+     * @param privateKey 私钥字符串
+     * @return SM2实例
+     */
+    static SM2 privateKeySm2(String privateKey) {
+        return new SM2(PRIVATE_KEY_CACHE.get(privateKey, key -> ECKeyUtil.decodePrivateKeyParams(SecureUtil.decode(key))), null);
+    }
+
+    /**
+     * 创建使用公钥的SM2实例
+     * @param publicKey 公钥字符串
+     * @return SM2实例
+     */
+    static SM2 publicKeySm2(String publicKey) {
+        return new SM2(null, PUBLIC_KEY_CACHE.get(publicKey, key -> ECKeyUtil.decodePublicKeyParams(SecureUtil.decode(key))));
+    }
+
+    /**
+     * 预先解析密钥并放入缓存，密钥格式错误时抛出异常
+     * @param privateKey 私钥字符串
+     * @param publicKey  公钥字符串
+     */
+    public static void preloadKeys(String privateKey, String publicKey) {
+        privateKeySm2(privateKey);
+        publicKeySm2(publicKey);
+    }
+
+    /**
+     * 清空密钥缓存，密钥轮换后调用
+     */
+    public static void clearKeyCache() {
+        PRIVATE_KEY_CACHE.invalidateAll();
+        PUBLIC_KEY_CACHE.invalidateAll();
+    }
+
     /**
      * 验证签名
      * @param signature         签名内容
@@ -32,7 +88,7 @@ public class SignUtil {
         String signatureData = (String) signature.get("signatureData");
         String encryptedKey = (String) signature.get("key");
         // 2. 使用decryptPrivateKey解密key得到SM4的秘钥
-        SM2 sm2Decrypt = new SM2(decryptPrivateKey, null);
+        SM2 sm2Decrypt = privateKeySm2(decryptPrivateKey);
         byte[] decryptedKeyBytes = sm2Decrypt.decrypt(Base64.decode(encryptedKey));
         String sm4Key = new String(decryptedKeyBytes, StandardCharsets.UTF_8);
 
@@ -46,7 +102,7 @@ public class SignUtil {
         String originalData = new String(decryptedDataBytes, StandardCharsets.UTF_8);
 
         // 4. 使用SM2WithSM3算法和verifyPublicKey对原文进行验签
-        SM2 sm2Sign = new SM2(null, verifyPublicKey);
+        SM2 sm2Sign = publicKeySm2(verifyPublicKey);
         boolean verify = sm2Sign.verify(originalData.getBytes(StandardCharsets.UTF_8),Base64.decode(signatureData));
         // 5. 验证签名是否匹配
         if (!verify) {
@@ -82,12 +138,12 @@ public class SignUtil {
         String encryptedData = Base64.encode(sm4.encrypt(content));
 
         // 3. 使用SM2WithSM3算法和verifyPrivateKey私钥对数据进行签名
-        SM2 sm2Sign = new SM2(signPrivateKey, null);
+        SM2 sm2Sign = privateKeySm2(signPrivateKey);
         byte[] signBytes = sm2Sign.sign(content.getBytes("UTF-8"));
         String signatureData = Base64.encode(signBytes);
 
         // 4. 使用encryptPublicKey对SM4秘钥进行加密
-        SM2 sm2Encrypt = new SM2(null, encryptPublicKey);
+        SM2 sm2Encrypt = publicKeySm2(encryptPublicKey);
         byte[] encryptedKeyBytes = sm2Encrypt.encrypt(sm4Key.getBytes());
         String encryptedKey = Base64.encode(encryptedKeyBytes);
 
@@ -0,0 +1,102 @@
+package com.example.provincialnode.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * 虚拟线程工具类
+ * 虚拟线程需要JDK 21及以上版本，项目按较低版本编译，因此通过反射创建；运行在不支持虚拟线程的JDK上时回退到平台线程池
+ */
+@Slf4j
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     * @param namePrefix 线程名称前缀
+     * @return 线程工厂
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("当前JDK不支持虚拟线程: " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * @param namePrefix 线程名称前缀
+     * @return 执行器
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, newThreadFactory(namePrefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建执行器
+     * 开启虚拟线程且当前JDK支持时使用虚拟线程执行器，否则使用平台线程池
+     * @param enabled 是否开启虚拟线程
+     * @param namePrefix 虚拟线程名称前缀
+     * @param platformExecutor 平台线程池
+     * @return 执行器
+     */
+    public static ExecutorService newExecutor(boolean enabled, String namePrefix, Supplier<ExecutorService> platformExecutor) {
+        if (enabled) {
+            if (isSupported()) {
+                log.info("使用虚拟线程执行器: {}", namePrefix);
+                return newThreadPerTaskExecutor(namePrefix);
+            }
+            log.warn("当前JDK不支持虚拟线程，使用平台线程池: {}, JDK版本: {}", namePrefix, System.getProperty("java.version"));
+        }
+        return platformExecutor.get();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.provincialnode.common.trace;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 跟踪片段
+ * 记录一段处理（流程、节点、全国节点调用）的开始结束时间和属性，traceId和spanId遵循W3C Trace Context格式
+ * 未开启跟踪时使用{@link #NOOP}，不记录任何内容；上游传入的traceparent解析为只读的远程父片段
+ */
+@Getter
+public final class Span {
+
+    public static final String TRACE_PARENT_HEADER = "traceparent";
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_ERROR = "ERROR";
+
+    // OTLP的片段类型和状态码
+    private static final int OTLP_SPAN_KIND_INTERNAL = 1;
+    private static final int OTLP_STATUS_CODE_OK = 1;
+    private static final int OTLP_STATUS_CODE_ERROR = 2;
+
+    // 纳秒时钟与系统时间的差值，片段时间由纳秒时钟换算，保证同一进程内的片段按开始顺序排列
+    private static final long EPOCH_OFFSET_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    // 不记录的片段
+    public static final Span NOOP = new Span(null, null, null, null, false);
+
+    // 结束时间只设置一次，并发结束时仅一个线程成功
+    private static final AtomicLongFieldUpdater<Span> END_TIME_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(Span.class, "endTimeUnixNano");
+
+    private final String traceId;
+
+    private final String spanId;
+
+    private final String parentSpanId;
+
+    private final String name;
+
+    // 是否记录（远程父片段和NOOP不记录）
+    private final boolean recording;
+
+    private final long startTimeUnixNano;
+
+    private volatile long endTimeUnixNano;
+
+    private volatile String status;
+
+    private final Map<String, Object> attributes;
+
+    private Span(String traceId, String spanId, String parentSpanId, String name, boolean recording) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.recording = recording;
+        this.startTimeUnixNano = recording ? EPOCH_OFFSET_NANOS + System.nanoTime() : 0L;
+        this.attributes = recording ? Collections.synchronizedMap(new LinkedHashMap<>()) : Collections.emptyMap();
+    }
+
+    /**
+     * 创建子片段，没有父片段时开始新的跟踪
+     * @param name 片段名称
+     * @param parent 父片段，可以为null
+     * @return 片段
+     */
+    static Span start(String name, Span parent) {
+        boolean hasParent = parent != null && parent.traceId != null;
+        return new Span(hasParent ? parent.traceId : randomHex(16), randomHex(8),
+                hasParent ? parent.spanId : null, name, true);
+    }
+
+    /**
+     * 解析W3C traceparent请求头为远程父片段
+     * @param traceParent 请求头，格式：00-{traceId}-{spanId}-{flags}
+     * @return 远程父片段，格式不正确时返回null
+     */
+    public static Span fromTraceParent(String traceParent) {
+        if (traceParent == null) {
+            return null;
+        }
+        String[] parts = traceParent.trim().split("-");
+        if (parts.length != 4 || parts[1].length() != 32 || parts[2].length() != 16
+                || !isHex(parts[1]) || !isHex(parts[2])) {
+            return null;
+        }
+        return new Span(parts[1], parts[2], null, null, false);
+    }
+
+    /**
+     * 生成W3C traceparent请求头
+     * @return 请求头，NOOP片段返回null
+     */
+    public String toTraceParent() {
+        if (traceId == null) {
+            return null;
+        }
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    /**
+     * 设置属性，值为null时忽略
+     * @param key 属性名
+     * @param value 属性值
+     * @return 当前片段
+     */
+    public Span setAttribute(String key, Object value) {
+        if (recording && value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 结束片段
+     * @param success 是否成功
+     * @return 是否首次结束（重复结束时返回false）
+     */
+    boolean end(boolean success) {
+        if (!recording || !END_TIME_UPDATER.compareAndSet(this, 0L, EPOCH_OFFSET_NANOS + System.nanoTime())) {
+            return false;
+        }
+        status = success ? STATUS_OK : STATUS_ERROR;
+        return true;
+    }
+
+    /**
+     * 转换为查询端点使用的格式，属性为扁平Map并附带耗时，便于直接阅读（不是OTLP格式）
+     * @return 片段内容
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>(10);
+        map.put("traceId", traceId);
+        map.put("spanId", spanId);
+        map.put("parentSpanId", parentSpanId);
+        map.put("name", name);
+        map.put("startTimeUnixNano", startTimeUnixNano);
+        map.put("endTimeUnixNano", endTimeUnixNano);
+        map.put("durationMs", (endTimeUnixNano - startTimeUnixNano) / 1_000_000.0);
+        synchronized (attributes) {
+            map.put("attributes", new LinkedHashMap<>(attributes));
+        }
+        map.put("status", Collections.singletonMap("code", status));
+        return map;
+    }
+
+    /**
+     * 转换为OTLP JSON的Span
+     * 时间为字符串形式的纳秒数，属性为KeyValue列表，状态码为OTLP枚举值，没有父片段时不输出parentSpanId
+     * @return OTLP Span
+     */
+    Map<String, Object> toOtlpSpan() {
+        Map<String, Object> otlp = new LinkedHashMap<>(10);
+        otlp.put("traceId", traceId);
+        otlp.put("spanId", spanId);
+        if (parentSpanId != null) {
+            otlp.put("parentSpanId", parentSpanId);
+        }
+        otlp.put("name", name);
+        otlp.put("kind", OTLP_SPAN_KIND_INTERNAL);
+        otlp.put("startTimeUnixNano", String.valueOf(startTimeUnixNano));
+        otlp.put("endTimeUnixNano", String.valueOf(endTimeUnixNano));
+        List<Map<String, Object>> otlpAttributes;
+        synchronized (attributes) {
+            otlpAttributes = new ArrayList<>(attributes.size());
+            attributes.forEach((key, value) -> otlpAttributes.add(otlpAttribute(key, value)));
+        }
+        otlp.put("attributes", otlpAttributes);
+        otlp.put("status", Collections.singletonMap("code", STATUS_OK.equals(status) ? OTLP_STATUS_CODE_OK : OTLP_STATUS_CODE_ERROR));
+        return otlp;
+    }
+
+    /**
+     * 转换为OTLP JSON的KeyValue，整数按int64规则输出为字符串
+     * @param key 属性名
+     * @param value 属性值
+     * @return KeyValue
+     */
+    static Map<String, Object> otlpAttribute(String key, Object value) {
+        Map<String, Object> anyValue = new LinkedHashMap<>(2);
+        if (value instanceof Boolean) {
+            anyValue.put("boolValue", value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            anyValue.put("intValue", String.valueOf(value));
+        } else if (value instanceof Number) {
+            anyValue.put("doubleValue", ((Number) value).doubleValue());
+        } else {
+            anyValue.put("stringValue", String.valueOf(value));
+        }
+        Map<String, Object> keyValue = new LinkedHashMap<>(2);
+        keyValue.put("key", key);
+        keyValue.put("value", anyValue);
+        return keyValue;
+    }
+
+    private static String randomHex(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder builder = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            int value = random.nextInt(256);
+            builder.append(Character.forDigit(value >> 4, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.provincialnode.common.trace;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 链路跟踪查询端点
+ * 通过 GET /actuator/traces/{traceId} 查询内存中最近结束的片段，需在management.endpoints.web.exposure.include中开放
+ */
+@Component
+@Endpoint(id = "traces")
+public class TraceEndpoint {
+
+    @Autowired
+    private Tracer tracer;
+
+    /**
+     * 查询某次跟踪的片段
+     * @param traceId 跟踪ID
+     * @return 按开始时间排序的片段，未找到时为空
+     */
+    @ReadOperation
+    public List<Map<String, Object>> trace(@Selector String traceId) {
+        return tracer.getTrace(traceId);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.provincialnode.common.trace;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轻量级链路跟踪
+ * 流程引擎为每个流程、每个节点创建片段，全国节点请求通过traceparent请求头向下游传递跟踪信息
+ * 结束的片段保存在内存中（最近recent-spans条，可按traceId查询），
+ * exporter配置为file时同时由后台线程追加写入文件，每批片段写为一行OTLP JSON（ExportTraceServiceRequest，
+ * 即resourceSpans/scopeSpans/spans结构），可由OpenTelemetry Collector的otlpjsonfile接收器读取
+ */
+@Slf4j
+@Component
+public class Tracer {
+
+    // OTLP导出的instrumentation scope名称
+    private static final String SCOPE_NAME = "com.example.provincialnode";
+
+    @Value("${spring.application.name:provincial-node-service}")
+    private String serviceName;
+
+    @Value("${provincial.node.tracing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${provincial.node.tracing.exporter:memory}")
+    private String exporter;
+
+    @Value("${provincial.node.tracing.file:logs/spans.jsonl}")
+    private String file;
+
+    @Value("${provincial.node.tracing.recent-spans:2000}")
+    private int recentSpans;
+
+    @Value("${provincial.node.tracing.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 最近结束的片段
+    private final Deque<Span> recent = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger recentCount = new AtomicInteger();
+
+    // 队列满时丢弃的片段数
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // 等待写入文件的片段，仅exporter为file时存在
+    private BlockingQueue<Span> fileQueue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || !"file".equalsIgnoreCase(exporter)) {
+            return;
+        }
+        fileQueue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "trace-span-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("链路跟踪已开启, 片段写入文件: {}", file);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Span> batch = new ArrayList<>();
+        fileQueue.drainTo(batch);
+        write(batch);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开始片段
+     * @param name 片段名称
+     * @param parent 父片段（可以是上游传入的远程片段），为null时开始新的跟踪
+     * @return 片段，未开启跟踪时返回{@link Span#NOOP}
+     */
+    public Span startSpan(String name, Span parent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        return Span.start(name, parent);
+    }
+
+    /**
+     * 结束并导出片段，重复结束时忽略
+     * @param span 片段
+     * @param success 是否成功
+     */
+    public void endSpan(Span span, boolean success) {
+        if (span == null || !span.end(success)) {
+            return;
+        }
+        recent.addLast(span);
+        if (recentCount.incrementAndGet() > recentSpans && recent.pollFirst() != null) {
+            recentCount.decrementAndGet();
+        }
+        if (fileQueue != null && !fileQueue.offer(span)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 查询内存中某次跟踪的片段，按开始时间排序
+     * @param traceId 跟踪ID
+     * @return 片段，格式见{@link Span#toMap()}
+     */
+    public List<Map<String, Object>> getTrace(String traceId) {
+        List<Span> spans = new ArrayList<>();
+        for (Span span : recent) {
+            if (span.getTraceId().equals(traceId)) {
+                spans.add(span);
+            }
+        }
+        spans.sort((a, b) -> Long.compare(a.getStartTimeUnixNano(), b.getStartTimeUnixNano()));
+        List<Map<String, Object>> trace = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            trace.add(span.toMap());
+        }
+        return trace;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 后台写入循环
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                Span first = fileQueue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Span> batch = new ArrayList<>();
+                batch.add(first);
+                fileQueue.drainTo(batch, 500);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("片段写入线程异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 将一批片段包装为OTLP JSON的ExportTraceServiceRequest
+     * @param batch 片段
+     * @return 导出请求
+     */
+    Map<String, Object> toOtlpRequest(List<Span> batch) {
+        List<Map<String, Object>> spans = new ArrayList<>(batch.size());
+        for (Span span : batch) {
+            spans.add(span.toOtlpSpan());
+        }
+        Map<String, Object> scopeSpans = new LinkedHashMap<>(2);
+        scopeSpans.put("scope", Collections.singletonMap("name", SCOPE_NAME));
+        scopeSpans.put("spans", spans);
+        Map<String, Object> resourceSpans = new LinkedHashMap<>(2);
+        resourceSpans.put("resource", Collections.singletonMap("attributes",
+                Collections.singletonList(Span.otlpAttribute("service.name", serviceName))));
+        resourceSpans.put("scopeSpans", Collections.singletonList(scopeSpans));
+        return Collections.singletonMap("resourceSpans", Collections.singletonList(resourceSpans));
+    }
+
+    private void write(List<Span> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(file);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(JSON.toJSONString(toOtlpRequest(batch)));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            log.error("写入片段文件失败: {}, {}", file, e.getMessage());
+        }
+    }
+}
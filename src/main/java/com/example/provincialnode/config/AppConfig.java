@@ -1,7 +1,9 @@
 package com.example.provincialnode.config;
 
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -12,11 +14,11 @@ import org.springframework.web.client.RestTemplate;
 public class AppConfig {
     /**
      * 配置RestTemplate
-     * 用于发送HTTP请求，特别是调用全国节点服务
+     * 用于发送HTTP请求，特别是调用全国节点服务，与全国节点请求节点共用连接池
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient nationalNodeHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(nationalNodeHttpClient));
     }
 
 }
\ No newline at end of file
@@ -29,6 +29,26 @@ public class NationalNodeConfig {
     @Value("${provincial.node.read-timeout}")
     private int readTimeout;
 
+    // 全国节点连接池最大连接数
+    @Value("${provincial.node.http-pool.max-total:200}")
+    private int httpPoolMaxTotal;
+
+    // 全国节点连接池每个路由最大连接数
+    @Value("${provincial.node.http-pool.max-per-route:100}")
+    private int httpPoolMaxPerRoute;
+
+    // 从连接池获取连接的超时时间
+    @Value("${provincial.node.http-pool.connection-request-timeout:2000}")
+    private int httpPoolConnectionRequestTimeout;
+
+    // 连接保持时间（毫秒），全国节点未返回Keep-Alive时使用
+    @Value("${provincial.node.http-pool.keep-alive:30000}")
+    private long httpPoolKeepAlive;
+
+    // 空闲连接回收时间（毫秒）
+    @Value("${provincial.node.http-pool.idle-timeout:60000}")
+    private long httpPoolIdleTimeout;
+
     // 获取全国节点公钥
     // 全国节点公钥
     private volatile String publicKey="MFkwEwYHKoZIzj0CAQYIKoEcz1UBgi0DQgAECWtHj8hyyEjTY3ECE9l8i2T6AQhEOsuD4qqf2UI4exVH5rbIBJyrg2dddyY+f+FGBrdAuLYeRimFY9WqFtgUFg==";
@@ -0,0 +1,193 @@
+package com.example.provincialnode.config;
+
+import com.example.provincialnode.common.VirtualThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 全国节点HTTP客户端配置类
+ * 全国节点请求共用一个连接池，复用长连接，避免每次请求重新建立TCP/TLS连接；连接池状态通过actuator指标暴露
+ */
+@Slf4j
+@Configuration
+public class NationalNodeHttpClientConfig {
+
+    /**
+     * 全国节点连接池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager nationalNodeConnectionManager(NationalNodeConfig nationalNodeConfig) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(nationalNodeConfig.getHttpPoolMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(nationalNodeConfig.getHttpPoolMaxPerRoute());
+        // 空闲超过1秒的连接在复用前检查是否可用
+        connectionManager.setValidateAfterInactivity(1000);
+        log.info("全国节点连接池初始化, 最大连接数: {}, 每个路由最大连接数: {}",
+                nationalNodeConfig.getHttpPoolMaxTotal(), nationalNodeConfig.getHttpPoolMaxPerRoute());
+        return connectionManager;
+    }
+
+    /**
+     * 全国节点HTTP客户端
+     * 后台线程定期回收过期和空闲连接
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient nationalNodeHttpClient(PoolingHttpClientConnectionManager nationalNodeConnectionManager,
+                                                      NationalNodeConfig nationalNodeConfig) {
+        return HttpClients.custom()
+                .setConnectionManager(nationalNodeConnectionManager)
+                .setDefaultRequestConfig(requestConfig(nationalNodeConfig))
+                .setKeepAliveStrategy(keepAliveStrategy(nationalNodeConfig))
+                .evictExpiredConnections()
+                .evictIdleConnections(nationalNodeConfig.getHttpPoolIdleTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 全国节点NIO连接池
+     * 仅在provincial.node.national-node-transport配置为async时创建，与阻塞客户端使用相同的连接池大小和超时配置
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "provincial.node", name = "national-node-transport", havingValue = "async")
+    public PoolingNHttpClientConnectionManager nationalNodeAsyncConnectionManager(NationalNodeConfig nationalNodeConfig) throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                .setConnectTimeout(nationalNodeConfig.getConnectTimeout())
+                .setSoTimeout(nationalNodeConfig.getReadTimeout())
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(nationalNodeConfig.getHttpPoolMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(nationalNodeConfig.getHttpPoolMaxPerRoute());
+        log.info("全国节点NIO连接池初始化, IO线程数: {}, 最大连接数: {}", ioReactorConfig.getIoThreadCount(), nationalNodeConfig.getHttpPoolMaxTotal());
+        return connectionManager;
+    }
+
+    /**
+     * 全国节点NIO客户端
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "provincial.node", name = "national-node-transport", havingValue = "async")
+    public CloseableHttpAsyncClient nationalNodeAsyncHttpClient(PoolingNHttpClientConnectionManager nationalNodeAsyncConnectionManager,
+                                                                NationalNodeConfig nationalNodeConfig) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(nationalNodeAsyncConnectionManager)
+                .setDefaultRequestConfig(requestConfig(nationalNodeConfig))
+                .setKeepAliveStrategy(keepAliveStrategy(nationalNodeConfig))
+                .build();
+        client.start();
+        log.info("全国节点NIO客户端启动");
+        return client;
+    }
+
+    /**
+     * 全国节点响应处理执行器
+     * NIO客户端的回调在IO线程中执行，响应体解析和结果转换提交到该执行器，避免阻塞IO线程；
+     * 队列已满时拒绝任务，节点执行异常，按节点重试配置重试
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "provincial.node", name = "national-node-transport", havingValue = "async")
+    public ExecutorService nationalNodeResponseExecutor(@Value("${provincial.node.virtual-threads.enabled:false}") boolean virtualThreadsEnabled) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        return VirtualThreads.newExecutor(virtualThreadsEnabled, "national-node-response-", () -> new ThreadPoolExecutor(
+                threads, // 核心线程数
+                threads, // 最大线程数
+                60L, TimeUnit.SECONDS, // 空闲线程存活时间
+                new LinkedBlockingQueue<>(1000), // 工作队列
+                new ThreadPoolExecutor.AbortPolicy() // 拒绝策略，不在IO线程中执行，由节点以异常结束
+        ));
+    }
+
+    /**
+     * NIO连接池指标
+     * national.node.http.async.pool.leased：使用中的连接数
+     * national.node.http.async.pool.available：空闲连接数
+     * national.node.http.async.pool.pending：等待获取连接的请求数
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "provincial.node", name = "national-node-transport", havingValue = "async")
+    public MeterBinder nationalNodeAsyncConnectionPoolMetrics(PoolingNHttpClientConnectionManager nationalNodeAsyncConnectionManager) {
+        return registry -> {
+            gauge(registry, "national.node.http.async.pool.leased", "使用中的连接数", nationalNodeAsyncConnectionManager,
+                    manager -> manager.getTotalStats().getLeased());
+            gauge(registry, "national.node.http.async.pool.available", "空闲连接数", nationalNodeAsyncConnectionManager,
+                    manager -> manager.getTotalStats().getAvailable());
+            gauge(registry, "national.node.http.async.pool.pending", "等待获取连接的请求数", nationalNodeAsyncConnectionManager,
+                    manager -> manager.getTotalStats().getPending());
+        };
+    }
+
+    /**
+     * 连接池指标
+     * national.node.http.pool.leased：使用中的连接数
+     * national.node.http.pool.available：空闲连接数
+     * national.node.http.pool.pending：等待获取连接的请求数
+     * national.node.http.pool.max：最大连接数
+     */
+    @Bean
+    public MeterBinder nationalNodeConnectionPoolMetrics(PoolingHttpClientConnectionManager nationalNodeConnectionManager) {
+        return registry -> {
+            gauge(registry, "national.node.http.pool.leased", "使用中的连接数", nationalNodeConnectionManager,
+                    manager -> manager.getTotalStats().getLeased());
+            gauge(registry, "national.node.http.pool.available", "空闲连接数", nationalNodeConnectionManager,
+                    manager -> manager.getTotalStats().getAvailable());
+            gauge(registry, "national.node.http.pool.pending", "等待获取连接的请求数", nationalNodeConnectionManager,
+                    manager -> manager.getTotalStats().getPending());
+            gauge(registry, "national.node.http.pool.max", "最大连接数", nationalNodeConnectionManager,
+                    manager -> manager.getTotalStats().getMax());
+        };
+    }
+
+    /**
+     * 请求配置，应用全国节点连接超时、读取超时配置
+     */
+    private static RequestConfig requestConfig(NationalNodeConfig nationalNodeConfig) {
+        return RequestConfig.custom()
+                .setConnectTimeout(nationalNodeConfig.getConnectTimeout())
+                .setSocketTimeout(nationalNodeConfig.getReadTimeout())
+                .setConnectionRequestTimeout(nationalNodeConfig.getHttpPoolConnectionRequestTimeout())
+                .build();
+    }
+
+    /**
+     * 连接保持策略，优先使用全国节点返回的Keep-Alive，未返回时使用配置的连接保持时间
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(NationalNodeConfig nationalNodeConfig) {
+        long keepAlive = nationalNodeConfig.getHttpPoolKeepAlive();
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+        };
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, String description,
+                                  T connectionManager, ToDoubleFunction<T> value) {
+        Gauge.builder(name, connectionManager, value)
+                .description(description)
+                .register(registry);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.provincialnode.config;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -13,6 +14,7 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -53,6 +55,25 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * 配置Redis消息监听容器，用于订阅缓存失效消息
+     * 容器不随应用上下文自动启动，由CacheInvalidationBus在后台订阅，Redis不可用时不阻止应用启动；
+     * 订阅成功后连接断开时按重试间隔自动恢复
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+            @Value("${provincial.node.cache.invalidation-retry-interval-ms:5000}") long retryIntervalMs) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(redisConnectionFactory);
+        container.setRecoveryInterval(retryIntervalMs);
+        return container;
+    }
+
     /**
      * 配置StringRedisTemplate
      */
@@ -0,0 +1,33 @@
+package com.example.provincialnode.config;
+
+import com.example.provincialnode.common.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 虚拟线程配置类
+ * 开启provincial.node.virtual-threads.enabled且JDK支持虚拟线程时，Tomcat请求改为在虚拟线程中处理
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "provincial.node.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Tomcat请求处理执行器
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (!VirtualThreads.isSupported()) {
+                log.warn("当前JDK不支持虚拟线程，Tomcat继续使用平台线程池, JDK版本: {}", System.getProperty("java.version"));
+                return;
+            }
+            log.info("Tomcat请求使用虚拟线程处理");
+            protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-virtual-"));
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.provincialnode.controller;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 市级节点请求体
+ * 由{@link CityNodeRequestMessageConverter}读取请求体时直接生成，txnBodyCom和txnCommCom的字段已合并为流程使用的请求参数
+ */
+@Getter
+public class CityNodeRequest {
+
+    public static final String TXN_COMM_COM = "txnCommCom";
+    public static final String TXN_BODY_COM = "txnBodyCom";
+
+    // 合并后的请求参数，同名字段以txnCommCom为准
+    private final Map<String, Object> requestParams;
+
+    // 请求体是否包含txnCommCom
+    private final boolean txnCommComPresent;
+
+    // 请求体是否包含txnBodyCom
+    private final boolean txnBodyComPresent;
+
+    // 不是JSON对象的结构体名称，结构体格式正确时为null
+    private final String malformedSection;
+
+    CityNodeRequest(Map<String, Object> requestParams, boolean txnCommComPresent, boolean txnBodyComPresent, String malformedSection) {
+        this.requestParams = requestParams;
+        this.txnCommComPresent = txnCommComPresent;
+        this.txnBodyComPresent = txnBodyComPresent;
+        this.malformedSection = malformedSection;
+    }
+}
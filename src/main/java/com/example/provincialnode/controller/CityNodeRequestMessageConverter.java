@@ -0,0 +1,103 @@
+package com.example.provincialnode.controller;
+
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONReader;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 市级节点请求体转换器
+ * 流式读取请求体，txnBodyCom的字段直接读入请求参数，txnCommCom的字段读取后覆盖同名字段，
+ * 请求体只解析一次，不再先解析为Map再序列化、反序列化合并
+ * txnCommCom或txnBodyCom不是JSON对象时不抛出异常，在请求体上记录该结构体，由控制器按参数错误响应
+ * 注册为Bean后由Spring Boot加入消息转换器列表，仅用于读取{@link CityNodeRequest}
+ */
+@Component
+public class CityNodeRequestMessageConverter extends AbstractHttpMessageConverter<CityNodeRequest> {
+
+    public CityNodeRequestMessageConverter() {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CityNodeRequest.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CityNodeRequest readInternal(Class<? extends CityNodeRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : getDefaultCharset();
+        Map<String, Object> requestParams = new HashMap<>();
+        Map<String, Object> txnCommCom = null;
+        boolean txnBodyComPresent = false;
+        String malformedSection = null;
+        try (JSONReader reader = new JSONReader(new InputStreamReader(inputMessage.getBody(), charset))) {
+            reader.startObject();
+            while (reader.hasNext()) {
+                String key = reader.readString();
+                if (CityNodeRequest.TXN_BODY_COM.equals(key)) {
+                    txnBodyComPresent = readFields(reader, requestParams);
+                    if (!txnBodyComPresent && malformedSection == null) {
+                        malformedSection = key;
+                    }
+                } else if (CityNodeRequest.TXN_COMM_COM.equals(key)) {
+                    Map<String, Object> fields = new HashMap<>(16);
+                    if (readFields(reader, fields)) {
+                        txnCommCom = fields;
+                    } else if (malformedSection == null) {
+                        malformedSection = key;
+                    }
+                } else {
+                    // 流程不使用的其他字段
+                    reader.readObject();
+                }
+            }
+            reader.endObject();
+        } catch (JSONException e) {
+            throw new HttpMessageNotReadableException("请求体JSON格式错误: " + e.getMessage(), e, inputMessage);
+        }
+        if (txnCommCom != null) {
+            requestParams.putAll(txnCommCom);
+        }
+        return new CityNodeRequest(requestParams, txnCommCom != null, txnBodyComPresent, malformedSection);
+    }
+
+    /**
+     * 读取结构体的字段
+     * JSONReader在读取值之前无法判断值的类型，结构体整体读取后再写入目标Map
+     * @param reader JSON读取器
+     * @param target 字段写入的Map
+     * @return 结构体是否为JSON对象，为null、字符串或数组时返回false
+     */
+    private boolean readFields(JSONReader reader, Map<String, Object> target) {
+        Object section = reader.readObject();
+        if (!(section instanceof Map)) {
+            return false;
+        }
+        ((Map<?, ?>) section).forEach((key, value) -> target.put(String.valueOf(key), value));
+        return true;
+    }
+
+    @Override
+    protected void writeInternal(CityNodeRequest request, HttpOutputMessage outputMessage) {
+        throw new UnsupportedOperationException("不支持输出市级节点请求体");
+    }
+}
@@ -1,22 +1,21 @@
 package com.example.provincialnode.controller;
 
-import com.alibaba.fastjson.JSON;
 import com.example.provincialnode.common.Result;
 import com.example.provincialnode.common.ResultCode;
-import com.example.provincialnode.entity.SysAccessOrganizationEntity;
+import com.example.provincialnode.common.trace.Span;
 import com.example.provincialnode.entity.SysInterfaceDefinitionEntity;
 import com.example.provincialnode.exception.BusinessException;
 import com.example.provincialnode.processor.ProcessEngine;
 import com.example.provincialnode.processor.context.ProcessContext;
-import com.example.provincialnode.service.SysAccessOrganizationService;
+import com.example.provincialnode.service.ProvincialIdentity;
 import com.example.provincialnode.service.SysInterfaceDefinitionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import javax.servlet.http.HttpServletRequest;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 主控制器类
@@ -31,31 +30,38 @@ public class MainController {
     private SysInterfaceDefinitionService sysInterfaceDefinitionService;
 
     @Autowired
-    private SysAccessOrganizationService sysAccessOrganizationService;
+    private ProvincialIdentity provincialIdentity;
 
     @Autowired
     private ProcessEngine processEngine;
     /**
      * 处理所有接口请求
      * 通配符路径，根据URL后缀识别接口
+     * 流程异步执行，节点重试等待期间请求线程被释放，流程完成后写回响应
      */
     @RequestMapping(value = "**", method = {RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE})
-    public Map<String,Object> handleRequest(@RequestBody(required = false) Map<String, Object> requestBody,HttpServletRequest request) {
+    public CompletableFuture<Map<String,Object>> handleRequest(@RequestBody(required = false) CityNodeRequest requestBody,HttpServletRequest request) {
         //获取请求路径不包含上下文
         String interfacePath=getInterfacePathWithoutContext(request);
         log.info("收到请求: URL={}", interfacePath);
-        ProcessContext context=new ProcessContext();
         try {
             // 根据请求路径查询接口定义
             SysInterfaceDefinitionEntity interfaceDefinition = sysInterfaceDefinitionService.findByRequestPath(interfacePath);
             if(interfaceDefinition == null){
-               return  Result.error(ResultCode.NOT_FOUND.getCode(), "接口定义不存在").getResult();
+               return CompletableFuture.completedFuture(Result.error(ResultCode.NOT_FOUND.getCode(), "接口定义不存在").getResult());
             }
 
             //  检查接口是否启用
             if (interfaceDefinition.getStatus() != 1) {
                 log.error("接口未启用: {}", interfacePath);
-                return Result.error(ResultCode.SERVICE_UNAVAILABLE.getCode(), "接口未启用").getResult();
+                return CompletableFuture.completedFuture(Result.error(ResultCode.SERVICE_UNAVAILABLE.getCode(), "接口未启用").getResult());
+            }
+
+            // 结构体不是JSON对象时按参数错误响应
+            if (requestBody != null && requestBody.getMalformedSection() != null) {
+                log.error("请求参数格式错误: {}不是JSON对象, URL={}", requestBody.getMalformedSection(), interfacePath);
+                return CompletableFuture.completedFuture(Result.error(ResultCode.PARAM_ERROR.getCode(),
+                        "请求参数格式错误: " + requestBody.getMalformedSection() + "必须为JSON对象").getResult());
             }
 
             //校验入参规则是否符合市级规范
@@ -65,26 +71,27 @@ public class MainController {
             String interfaceCode = interfaceDefinition.getInterfaceCode();
             
             // 构建处理上下文
-            context = buildProcessContext(requestBody, interfaceDefinition,request);
+            ProcessContext context = buildProcessContext(requestBody, interfaceDefinition,request);
             
             // 按照接口维度加载流程执行
             // 检查接口是否配置了特定流程
             String processCode = interfaceDefinition.getProcessCode();
             // 使用流程引擎执行流程
-            processEngine.executeProcess(processCode, context);
-            log.info("接口请求处理完成: {}, 结果: {}", interfaceCode,context.isSuccess());
-            if(context.isSuccess()){
-                return Result.success((Map<String, Object>) context.getResponseData()).getResult();
-            }else {
-                return Result.error(context.getErrorCode(),context.getErrorMessage()).getResult();
-            }
+            return processEngine.executeProcessAsync(processCode, context).thenApply(result -> {
+                log.info("接口请求处理完成: {}, 结果: {}", interfaceCode,result.isSuccess());
+                if(result.isSuccess()){
+                    return Result.success((Map<String, Object>) result.getResponseData()).getResult();
+                }else {
+                    return Result.error(result.getErrorCode(),result.getErrorMessage()).getResult();
+                }
+            });
         } catch (Exception e) {
             String errorMsg = "处理请求异常: " + e.getMessage();
             log.error(errorMsg, e);
             if(e instanceof BusinessException){
-              return Result.error(ResultCode.SYSTEM_ERROR.getCode(),e.getMessage()).getResult();
+              return CompletableFuture.completedFuture(Result.error(ResultCode.SYSTEM_ERROR.getCode(),e.getMessage()).getResult());
             }
-            return Result.error(ResultCode.SYSTEM_ERROR).getResult();
+            return CompletableFuture.completedFuture(Result.error(ResultCode.SYSTEM_ERROR).getResult());
         }
     }
 
@@ -108,11 +115,11 @@ public class MainController {
         }
     }
 
-    private void validateRequestBody(Map<String, Object> requestBody) {
+    private void validateRequestBody(CityNodeRequest requestBody) {
         if (requestBody == null) {
             throw new BusinessException("请求参数不能为空");
         }
-        if (!requestBody.containsKey("txnCommCom") || !requestBody.containsKey("txnBodyCom")) {
+        if (!requestBody.isTxnCommComPresent() || !requestBody.isTxnBodyComPresent()) {
             throw new BusinessException("请求参数缺少必要字段");
         }
     }
@@ -134,7 +141,7 @@ public class MainController {
     /**
      * 构建处理上下文
      */
-    private ProcessContext buildProcessContext(Map<String, Object> requestBody, SysInterfaceDefinitionEntity definition,HttpServletRequest request) {
+    private ProcessContext buildProcessContext(CityNodeRequest requestBody, SysInterfaceDefinitionEntity definition,HttpServletRequest request) {
         ProcessContext context = new ProcessContext();
         
         // 1. 设置请求ID
@@ -145,19 +152,13 @@ public class MainController {
         context.setInterfaceCode(definition.getInterfaceCode());
         context.setInterfacePath(definition.getRequestPath());
 
-        //3.处理结构体将txnCommCom、txnBodyCom 放入一个map 作为请求参数,方便流程使用
-        Object txnCommCom = requestBody.get("txnCommCom");
-        Object txnBodyCom = requestBody.get("txnBodyCom");
-        String txnBodyComJSON = JSON.toJSONString(txnBodyCom);
-        String txnCommComJSON = JSON.toJSONString(txnCommCom);
-        Map<String, Object> requestParams = new HashMap<>();
-        requestParams.putAll(JSON.parseObject(txnBodyComJSON, Map.class));
-        requestParams.putAll(JSON.parseObject(txnCommComJSON, Map.class));
-        context.setRequestParams(requestParams);
+        //3.txnCommCom、txnBodyCom 在读取请求体时已合并为一个map 作为请求参数,方便流程使用
+        context.setRequestParams(requestBody.getRequestParams());
         // 4. 添加其他必要信息
-        SysAccessOrganizationEntity self = sysAccessOrganizationService.selectByAppKey("self");
-        context.setAttribute("selfPublicKey", self.getPublicKey());
+        context.setAttribute("selfPublicKey", provincialIdentity.getPublicKey());
         context.setAttribute("requestIp", getClientIp(request));
+        // 上游传入的跟踪信息，作为流程片段的父片段
+        context.setSpan(Span.fromTraceParent(request.getHeader(Span.TRACE_PARENT_HEADER)));
         return context;
     }
 
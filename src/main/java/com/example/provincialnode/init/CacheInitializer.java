@@ -1,9 +1,13 @@
 package com.example.provincialnode.init;
 
+import com.example.provincialnode.common.CacheInvalidationBus;
+import com.example.provincialnode.common.CacheInvalidationEvent;
 import com.example.provincialnode.common.CacheService;
 import com.example.provincialnode.entity.SysAccessOrganizationEntity;
 import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
+import com.example.provincialnode.processor.plan.ProcessPlanCache;
 import com.example.provincialnode.service.SysAccessOrganizationService;
+import com.example.provincialnode.service.SysInterfaceDefinitionService;
 import com.example.provincialnode.service.SysProcessNodeConfigService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +20,7 @@ import java.util.stream.Collectors;
 
 /**
  * 缓存初始化器
- * 在系统启动时加载接入机构和节点配置到缓存中
+ * 在系统启动时加载接入机构、节点配置和接口路由表到缓存中
  */
 @Slf4j
 @Component
@@ -25,10 +29,18 @@ public class CacheInitializer implements CommandLineRunner {
     private SysProcessNodeConfigService sysProcessNodeConfigService;
     @Autowired
     private SysAccessOrganizationService sysAccessOrganizationService;
+    @Autowired
+    private SysInterfaceDefinitionService sysInterfaceDefinitionService;
 
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private ProcessPlanCache processPlanCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     // 缓存前缀
     private static final String CACHE_PREFIX_ACCESS_ORG = "access_org:";
     private static final String CACHE_PREFIX_NODE_CONFIG = "node_config:";
@@ -41,6 +53,9 @@ public class CacheInitializer implements CommandLineRunner {
         
         //加载节点配置到缓存
         loadProcessNodeConfigs();
+
+        //加载接口路由表
+        loadInterfaceRoutes();
         
         log.info("系统缓存初始化完成");
     }
@@ -53,10 +68,8 @@ public class CacheInitializer implements CommandLineRunner {
             List<SysAccessOrganizationEntity> organizations = sysAccessOrganizationService.selectAll();
             log.info("加载接入机构数量: {}", organizations.size());
             for (SysAccessOrganizationEntity org : organizations) {
-                // 按AppKey缓存
-                if (org.getAppKey() != null) {
-                    cacheService.set(CACHE_PREFIX_ACCESS_ORG + "app_key:" + org.getAppKey(), org);
-                }
+                // 按AppKey缓存，过期时间与按需加载一致
+                sysAccessOrganizationService.putRedisCache(org);
             }
             // 缓存所有启用的机构列表
             List<SysAccessOrganizationEntity> enabledOrgs = sysAccessOrganizationService.selectEnabled();
@@ -67,6 +80,17 @@ public class CacheInitializer implements CommandLineRunner {
         }
     }
 
+    /**
+     * 加载接口路由表
+     */
+    private void loadInterfaceRoutes() {
+        try {
+            sysInterfaceDefinitionService.reloadRoutes();
+        } catch (Exception e) {
+            log.error("加载接口路由表失败: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * 加载节点配置到缓存
      */
@@ -83,6 +107,8 @@ public class CacheInitializer implements CommandLineRunner {
                 List<SysProcessNodeConfigEntity> nodeConfigs = entry.getValue();
                 // 缓存该流程的所有节点配置
                 cacheService.set(CACHE_PREFIX_NODE_CONFIG + "all:" + processCode, nodeConfigs);
+                // 编译流程计划，节点配置（如校验规则）无效时在启动时记录错误
+                processPlanCache.refresh(processCode);
             }
             log.info("加载节点配置到缓存完成，流程数量: {}", configsByProcessCode.size());
         } catch (Exception e) {
@@ -100,7 +126,9 @@ public class CacheInitializer implements CommandLineRunner {
         }
         
         try {
-            cacheService.set(CACHE_PREFIX_ACCESS_ORG + "app_key:" + org.getAppKey(), org);
+            sysAccessOrganizationService.putRedisCache(org);
+            // 清除所有实例的本地缓存，下次查询时从Redis重新加载
+            cacheInvalidationBus.publish(CacheInvalidationEvent.CacheType.ACCESS_ORG, org.getAppKey());
             // 刷新启用的机构列表缓存
             List<SysAccessOrganizationEntity> enabledOrgs = sysAccessOrganizationService.selectEnabled();
             cacheService.set(CACHE_PREFIX_ACCESS_ORG + "enabled_list", enabledOrgs);
@@ -123,9 +151,26 @@ public class CacheInitializer implements CommandLineRunner {
             // 获取该流程的所有节点配置
             List<SysProcessNodeConfigEntity> allConfigs = sysProcessNodeConfigService.getByProcessCode(processCode);
             cacheService.set(CACHE_PREFIX_NODE_CONFIG + "all:" + processCode, allConfigs);
+            // 清除所有实例的流程计划，本实例立即重新编译
+            cacheInvalidationBus.publish(CacheInvalidationEvent.CacheType.PROCESS_CONFIG, processCode);
+            processPlanCache.refresh(processCode);
             log.info("刷新节点配置缓存成功: {}", processCode);
         } catch (Exception e) {
             log.error("刷新节点配置缓存失败: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * 刷新接口定义缓存
+     * @param requestPath 请求路径，为null时刷新所有接口定义
+     */
+    public void refreshInterfaceDefinitionCache(String requestPath) {
+        try {
+            // 刷新所有实例的接口路由表
+            cacheInvalidationBus.publish(CacheInvalidationEvent.CacheType.INTERFACE_DEFINITION, requestPath);
+            log.info("刷新接口定义缓存成功: {}", requestPath == null ? "全部" : requestPath);
+        } catch (Exception e) {
+            log.error("刷新接口定义缓存失败: {}", e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.provincialnode.job;
 
+import com.example.provincialnode.common.VirtualThreads;
 import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
 import com.example.provincialnode.processor.ProcessEngine;
 import com.example.provincialnode.processor.context.ProcessContext;
@@ -8,8 +9,11 @@ import com.xxl.job.core.biz.model.ReturnT;
 import com.xxl.job.core.handler.annotation.XxlJob;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -28,8 +32,21 @@ public class ProcessRecoveryJob {
     @Autowired
     private ProcessEngine processEngine;
 
+    @Value("${provincial.node.virtual-threads.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
     // 线程池，用于并发执行流程恢复
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private ExecutorService executorService;
+
+    @PostConstruct
+    public void init() {
+        executorService = VirtualThreads.newExecutor(virtualThreadsEnabled, "process-recovery-", () -> Executors.newFixedThreadPool(10));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executorService.shutdown();
+    }
 
     /**
      * 定时恢复流程执行
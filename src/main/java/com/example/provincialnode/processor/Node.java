@@ -2,6 +2,9 @@ package com.example.provincialnode.processor;
 
 import com.example.provincialnode.processor.context.ProcessContext;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 接口处理节点基础接口
  * 定义节点执行的核心方法
@@ -11,7 +14,12 @@ import com.example.provincialnode.processor.context.ProcessContext;
  *   “inParamType”: "String" // 描述节点在不同流程中输入参数类型，支持【array,map,jsonObject,string】
  *   "outParamName": "XX" // 描述节点在不同流程中的输出参数名称
  *   “outParamType”: "String" // 描述节点在不同流程中输出参数类型，支持【array,map,jsonObject,string】
+ *   "dependsOn": ["tokenValidateNode"] // 可选，显式声明依赖的节点ID，用于无法通过输入输出参数推导的依赖
+ *   "joinAt": "signatureNode2" // 可选，仅异步节点有效：在指定节点执行前等待该异步节点完成；end（默认）表示流程结束前等待，
+ *                              // none表示请求不等待，执行记录在异步节点完成后写入；未配置时若有后续节点读取其输出参数，则在该节点前等待
+ *   "timeoutMs": 3000 // 可选，仅异步节点有效：异步节点执行超时时间（毫秒），超时视为节点执行失败
  * }  此配置主要作用为描述节点在不同流程中的输入输出参数名称和类型，以便于在流程中进行参数传递和校验。  
+ * 流程引擎根据输入输出参数名称推导节点间的依赖关系，互不依赖的节点会并行执行。
  * */
 public interface Node {
 
@@ -25,6 +33,10 @@ public interface Node {
     String requestParams="requestParams";
     String responseData="responseData";
     String nodeConfig="nodeConfig";
+    String dependsOn="dependsOn";
+    String joinAt="joinAt";
+    String timeoutMs="timeoutMs";
+    String compiledConfig="compiledConfig";
     /**
      * 节点执行方法
      * @param context 处理上下文
@@ -32,6 +44,38 @@ public interface Node {
      */
     boolean execute(ProcessContext context);
 
+    /**
+     * 异步执行节点
+     * 默认在当前线程调用{@link #execute(ProcessContext)}；等待外部IO的节点可覆盖此方法返回未完成的结果，
+     * 流程引擎在结果完成前不占用线程，完成后在节点执行线程池中继续执行后续节点
+     * @param context 处理上下文
+     * @return 执行结果
+     */
+    default CompletableFuture<Boolean> executeAsync(ProcessContext context) {
+        return CompletableFuture.completedFuture(execute(context));
+    }
+
+    /**
+     * 编译节点配置
+     * 编译流程计划时调用，节点可预先编译执行时使用的配置（如校验规则），执行时通过{@link #compiledConfig}从节点视图中读取；
+     * 配置无效时抛出异常，该节点在流程计划中标记为配置无效，执行时直接失败
+     * @param nodeConfig 节点配置（只读）
+     * @return 编译后的配置，不需要编译时返回null
+     */
+    default Object compileConfig(Map<String, Object> nodeConfig) {
+        return null;
+    }
+
+    /**
+     * 是否原地修改输入数据
+     * 原地修改输入参数的节点在依赖推导中同时视为该参数的写入者，不与读取该参数的其他节点并行执行
+     * @param nodeConfig 节点配置（只读）
+     * @return 是否原地修改输入数据
+     */
+    default boolean mutatesInput(Map<String, Object> nodeConfig) {
+        return false;
+    }
+
     /**
      * 获取节点ID
      * @return 节点ID
@@ -44,4 +88,13 @@ public interface Node {
      */
     String getNodeName();
 
+    /**
+     * 是否为屏障节点
+     * 屏障节点会修改上下文中的公共数据（如appKey），并行执行时需等待之前的节点全部完成后才执行，之后的节点也需等待其完成
+     * @return 是否为屏障节点
+     */
+    default boolean isBarrier() {
+        return false;
+    }
+
 }
\ No newline at end of file
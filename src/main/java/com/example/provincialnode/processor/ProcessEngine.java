@@ -1,31 +1,40 @@
 package com.example.provincialnode.processor;
 
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONObject;
-import com.example.provincialnode.common.Result;
 import com.example.provincialnode.common.ResultCode;
+import com.example.provincialnode.common.VirtualThreads;
+import com.example.provincialnode.common.trace.Span;
+import com.example.provincialnode.common.trace.Tracer;
 import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
-import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
 import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.processor.plan.PlanNode;
+import com.example.provincialnode.processor.plan.ProcessPlan;
+import com.example.provincialnode.processor.plan.ProcessPlanCache;
+import com.example.provincialnode.processor.plan.RetryConfig;
+import com.example.provincialnode.service.ProcessExecutionJournal;
+import com.example.provincialnode.service.RequestLogWriter;
 import com.example.provincialnode.service.SysProcessExecutionRecordService;
-import com.example.provincialnode.service.SysProcessNodeConfigService;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.swing.*;
-import java.util.HashMap;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 流程引擎类
  * 处理流程的执行、异步执行和重试逻辑
  * TODO:  回放只回放当前失败节点，也就是支持向前补偿--这里回放逻辑需要修改不能每次回放都生成新的执行记录，这会导致重复执行
  *        优化执行流程模版，特别是上下文数据可否只存当前节点的输入和公共参数
- *        优化执行流程模版，执行记录sql合并，不要执行太多
  *        缓存写同步、公共配置初始化和定时更新逻辑检查
  *        定时token刷新容错处理
  *        定时恢复流程token失效问题
@@ -36,131 +45,326 @@ import java.util.concurrent.*;
 public class ProcessEngine {
 
     @Autowired
-    private SysProcessNodeConfigService processNodeConfigService;
+    private SysProcessExecutionRecordService processExecutionRecordService;
 
     @Autowired
-    private SysProcessExecutionRecordService processExecutionRecordService;
+    private ProcessExecutionJournal executionJournal;
+
+    @Autowired
+    private ProcessPlanCache processPlanCache;
+
+    @Autowired
+    private RequestLogWriter requestLogWriter;
+
+    @Autowired
+    private ProcessMetrics processMetrics;
 
     @Autowired
-    private Map<String, Node> nodeMap;
+    private Tracer tracer;
 
     // 异步执行线程池
-    private final ExecutorService asyncExecutor = new ThreadPoolExecutor(
-            10, // 核心线程数
-            50, // 最大线程数
-            60L, TimeUnit.SECONDS, // 空闲线程存活时间
-            new LinkedBlockingQueue<>(1000), // 工作队列
-            new ThreadPoolExecutor.CallerRunsPolicy() // 拒绝策略
-    );
+    private final ExecutorService asyncExecutor;
+
+    @Value("${provincial.node.engine.parallel-enabled:true}")
+    private boolean parallelEnabled;
+
+    // 是否在节点输出不再被读取后释放中间数据
+    @Value("${provincial.node.engine.release-intermediate:true}")
+    private boolean releaseIntermediate;
+
+    // 线程池已满时重新提交任务的初始等待时间(毫秒)，每次拒绝后加倍
+    private static final long DISPATCH_RETRY_DELAY_MS = 10;
+
+    // 线程池已满时重新提交任务的最长等待时间(毫秒)
+    private static final long DISPATCH_RETRY_MAX_DELAY_MS = 1000;
+
+    // 并行节点执行线程池，队列已满时拒绝，由重试调度线程延迟后重新提交
+    private final ExecutorService parallelExecutor;
+
+    // 节点重试调度线程，只负责计时，到期后将重试提交到并行线程池，不执行节点
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * @param parallelPoolSize 并行节点执行线程数
+     * @param virtualThreadsEnabled 是否使用虚拟线程执行节点，开启后异步节点和并行节点不再受线程池大小限制
+     */
+    public ProcessEngine(@Value("${provincial.node.engine.parallel-pool-size:32}") int parallelPoolSize,
+                         @Value("${provincial.node.virtual-threads.enabled:false}") boolean virtualThreadsEnabled) {
+        this.asyncExecutor = VirtualThreads.newExecutor(virtualThreadsEnabled, "process-async-", () -> new ThreadPoolExecutor(
+                10, // 核心线程数
+                50, // 最大线程数
+                60L, TimeUnit.SECONDS, // 空闲线程存活时间
+                new LinkedBlockingQueue<>(1000), // 工作队列
+                new ThreadPoolExecutor.CallerRunsPolicy() // 拒绝策略
+        ));
+        this.parallelExecutor = VirtualThreads.newExecutor(virtualThreadsEnabled, "process-parallel-", () -> new ThreadPoolExecutor(
+                parallelPoolSize, // 核心线程数
+                parallelPoolSize, // 最大线程数
+                60L, TimeUnit.SECONDS, // 空闲线程存活时间
+                new LinkedBlockingQueue<>(parallelPoolSize * 4), // 工作队列
+                new ThreadPoolExecutor.AbortPolicy() // 拒绝策略，由dispatch延迟后重新提交
+        ));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "process-retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        parallelExecutor.shutdown();
+        asyncExecutor.shutdown();
+    }
 
     /**
      * 执行流程
+     * 同步等待流程执行完成，供定时恢复、重放等后台调用
      * @param processCode 流程编码
      * @param context 处理上下文
      * @return 执行结果
      */
     public ProcessContext executeProcess(String processCode, ProcessContext context) {
+        return executeProcessAsync(processCode, context).join();
+    }
+
+    /**
+     * 异步执行流程
+     * 节点重试等待由重试调度线程计时，不占用请求线程；返回的结果总是正常完成，异常时上下文标记为失败
+     * @param processCode 流程编码
+     * @param context 处理上下文
+     * @return 执行结果
+     */
+    public CompletableFuture<ProcessContext> executeProcessAsync(String processCode, ProcessContext context) {
         log.info("开始执行流程: {}, 请求ID: {}", processCode, context.getRequestId());
-        // 创建流程执行记录
-        SysProcessExecutionRecordEntity executionRecord = processExecutionRecordService.createExecutionRecord(
+        long startNanos = System.nanoTime();
+        // 创建流程执行记录（执行中），流程结束后合并写入
+        SysProcessExecutionRecordEntity executionRecord = executionJournal.begin(
                 processCode,
                 context.getInterfaceCode(),
                 context.getAppKey(),
                 context.getRequestId()
         );
+        String executionId = executionRecord.getExecutionId();
         // 记录执行记录ID到上下文
-        context.setAttribute("executionId", executionRecord.getExecutionId());
+        context.setAttribute("executionId", executionId);
+        // 流程片段
+        Span processSpan = tracer.startSpan("process " + processCode, context.getSpan())
+                .setAttribute("processCode", processCode)
+                .setAttribute("requestId", context.getRequestId())
+                .setAttribute("executionId", executionId)
+                .setAttribute("appKey", context.getAppKey())
+                .setAttribute("interfaceCode", context.getInterfaceCode());
+        context.setSpan(processSpan);
+        // 本次执行中尚未等待的异步节点
+        Queue<AsyncNodeExecution> asyncNodes = new ConcurrentLinkedQueue<>();
 
+        CompletableFuture<Void> execution;
         try {
-            // 标记流程开始执行
-            processExecutionRecordService.updateExecutionStatus(
-                    executionRecord.getExecutionId(),
-                    1, // 执行中
-                    null
-            );
-            // 查询流程节点配置
-            List<SysProcessNodeConfigEntity> nodeConfigs = processNodeConfigService.getEnabledNodesByProcessCode(processCode);
-            if (nodeConfigs.isEmpty()) {
+            // 获取编译后的流程计划
+            ProcessPlan plan = processPlanCache.getPlan(processCode);
+            if (plan.isEmpty()) {
                 log.error("流程未配置节点: {}", processCode);
                 context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误: 流程未配置节点");
             }
-            // 按顺序执行节点
-            for (SysProcessNodeConfigEntity nodeConfig : nodeConfigs) {
-                String nodeId = nodeConfig.getNodeId();
-                String nodeName = nodeConfig.getNodeName();
-
-                // 更新当前节点
-                processExecutionRecordService.updateExecutionStatus(
-                        executionRecord.getExecutionId(),
-                        1, // 执行中
-                        nodeId
-                );
-                // 解析节点配置
-                Map<String, Object> nodeConfigMap = new HashMap<>();
-                if (nodeConfig.getNodeConfig() != null && !nodeConfig.getNodeConfig().isEmpty()) {
-                    try {
-                        nodeConfigMap = JSON.parseObject(nodeConfig.getNodeConfig(), Map.class);
-                    } catch (Exception e) {
-                        log.error("解析节点配置失败: {}", e.getMessage());
+            execution = executePlan(plan, context, executionId, asyncNodes);
+        } catch (Exception e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        return execution.handle((result, throwable) -> {
+            String errorMessage;
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                log.error("流程执行异常: {}", cause.getMessage(), cause);
+                context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误");
+                errorMessage = "系统内部错误: " + cause.getMessage();
+                processMetrics.recordProcess(processCode, ProcessMetrics.OUTCOME_ERROR, System.nanoTime() - startNanos);
+            } else {
+                errorMessage = context.isSuccess() ? null : context.getErrorMessage();
+                log.info("流程执行完成: {}, 请求ID: {}, 结果: {}",
+                        processCode, context.getRequestId(), context.isSuccess() ? "成功" : "失败");
+                processMetrics.recordProcess(processCode,
+                        context.isSuccess() ? ProcessMetrics.OUTCOME_SUCCESS : ProcessMetrics.OUTCOME_FAILURE, System.nanoTime() - startNanos);
+            }
+            processSpan.setAttribute("appKey", context.getAppKey())
+                    .setAttribute("errorCode", context.getErrorCode())
+                    .setAttribute("errorMessage", errorMessage);
+            tracer.endSpan(processSpan, context.isSuccess());
+            // 完成流程执行，请求日志和执行记录（状态、错误信息和用于重放的执行上下文）各合并为一次写入
+            completeExecution(executionId, context, errorMessage, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), asyncNodes);
+            return context;
+        });
+    }
+
+    /**
+     * 执行流程计划
+     * 按阶段执行节点，同一阶段内的节点互不依赖，并行执行；阶段执行失败时结束流程
+     * @param plan 流程计划
+     * @param context 上下文
+     * @param executionId 执行ID
+     * @param asyncNodes 未等待的异步节点
+     * @return 执行结果
+     */
+    private CompletableFuture<Void> executePlan(ProcessPlan plan, ProcessContext context, String executionId, Queue<AsyncNodeExecution> asyncNodes) {
+        List<List<PlanNode>> stages = parallelEnabled ? plan.getStages() : plan.getSequentialStages();
+        List<List<String>> releases = releaseIntermediate ? plan.getReleases(parallelEnabled) : null;
+        return executeStages(stages, releases, 0, context, executionId, asyncNodes)
+                // 等待请求需要等待的异步节点
+                .thenCompose(v -> joinAsyncNodes(asyncNodes, null, context))
+                .thenRun(() -> {
+                    if (context.isSuccess()) {
+                        context.setResponseData(context.getAttribute(plan.getResponseParamName()));
+                        // 结果已保存在responseData中，不再重复保存
+                        if (releaseIntermediate && plan.isResponseReleasable()) {
+                            context.removeAttribute(plan.getResponseParamName());
+                        }
                     }
+                });
+    }
+
+    private CompletableFuture<Void> executeStages(List<List<PlanNode>> stages, List<List<String>> releases, int index, ProcessContext context,
+                                                  String executionId, Queue<AsyncNodeExecution> asyncNodes) {
+        // 如果执行失败，结束流程
+        if (index >= stages.size() || !context.isSuccess()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executeStage(stages.get(index), context, executionId, asyncNodes)
+                .thenCompose(v -> {
+                    // 释放后续节点不再读取的中间数据，执行失败时保留用于排查
+                    if (releases != null && context.isSuccess()) {
+                        context.releaseAttributes(releases.get(index));
+                    }
+                    return executeStages(stages, releases, index + 1, context, executionId, asyncNodes);
+                });
+    }
+
+    /**
+     * 完成流程执行
+     * 没有未等待的异步节点时立即写入请求日志和执行记录；否则在异步节点全部完成后写入（请求不等待的异步节点中也可能记录请求日志），
+     * 异步节点失败时执行记录标记为失败
+     * @param executionId 执行ID
+     * @param context 上下文
+     * @param errorMessage 错误信息
+     * @param processingTime 请求处理耗时（毫秒），不含请求不等待的异步节点
+     * @param asyncNodes 请求不等待的异步节点
+     */
+    private void completeExecution(String executionId, ProcessContext context, String errorMessage, long processingTime,
+                                   Queue<AsyncNodeExecution> asyncNodes) {
+        int status = context.isSuccess() ? 2 : 3; // 2:成功, 3:失败
+        if (asyncNodes.isEmpty()) {
+            writeExecution(executionId, context, status, errorMessage, processingTime);
+            return;
+        }
+        CompletableFuture<?>[] futures = asyncNodes.stream().map(AsyncNodeExecution::getFuture).toArray(CompletableFuture<?>[]::new);
+        CompletableFuture.allOf(futures).whenComplete((result, throwable) -> {
+            String asyncErrorMessage = null;
+            for (AsyncNodeExecution asyncNode : asyncNodes) {
+                if (!awaitAsyncNode(asyncNode) && asyncErrorMessage == null) {
+                    asyncErrorMessage = asyncNode.getNodeContext().getErrorMessage();
                 }
-                context.setAttribute(Node.nodeConfig, nodeConfigMap);
-                //设置输入、输出参数名称和类型
-                context.setAttribute(Node.inParamName, isConfig(nodeConfigMap,Node.inParamName)?nodeConfigMap.get(Node.inParamName):Node.requestParams);
-                context.setAttribute(Node.requestParams,context.getRequestParams());
-                context.setAttribute(Node.inParamType,nodeConfigMap.get(Node.inParamType));
-                context.setAttribute(Node.outParamName,isConfig(nodeConfigMap,Node.outParamName)?nodeConfigMap.get(Node.outParamName):Node.responseData);
-                context.setAttribute(Node.outParamType,nodeConfigMap.get(Node.outParamType));
-                // 获取节点实现
-                Node node = nodeMap.get(nodeId);
-                if (node == null) {
-                    log.error("未找到节点实现: {}", nodeId);
-                    context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误: 未找到节点实现");
-                    break;
-                }
-                // 执行节点
-                if (nodeConfig.getAsyncExecution()) {
-                    // 异步执行
-                    executeNodeAsync(node, context, nodeConfig);
-                } else {
-                    // 同步执行
-                    executeNodeSync(node, context, nodeConfig);
-                }
-                // 如果执行失败，结束流程
-                if (!context.isSuccess()) {
-                    break;
-                }
-            }
-            if (context.isSuccess()) {
-                Map<String, Object> lastNodeConfigMap = JSON.parseObject(nodeConfigs.get(nodeConfigs.size() - 1).getNodeConfig(),Map.class);
-                context.setResponseData(context.getAttribute(isConfig(lastNodeConfigMap,Node.outParamName)?lastNodeConfigMap.get(Node.outParamName).toString():Node.responseData));
             }
-            // 完成流程执行
-            processExecutionRecordService.completeExecution(
-                    executionRecord.getExecutionId(),
-                    context.isSuccess() ? 2 : 3, // 2:成功, 3:失败
-                    context.isSuccess() ? null : context.getErrorMessage()
-            );
-            log.info("流程执行完成: {}, 请求ID: {}, 结果: {}",
-                    processCode, context.getRequestId(), context.isSuccess() ? "成功" : "失败");
-            return context;
+            writeExecution(executionId, context, asyncErrorMessage != null ? 3 : status,
+                    errorMessage != null ? errorMessage : asyncErrorMessage, processingTime);
+        });
+    }
+
+    /**
+     * 写入请求日志和执行记录
+     * 在请求完成路径中执行，写入异常只记录日志，不影响返回结果
+     * @param executionId 执行ID
+     * @param context 上下文
+     * @param status 执行状态
+     * @param errorMessage 错误信息
+     * @param processingTime 请求处理耗时（毫秒）
+     */
+    private void writeExecution(String executionId, ProcessContext context, int status, String errorMessage, long processingTime) {
+        try {
+            requestLogWriter.complete(executionId, context, processingTime);
         } catch (Exception e) {
-            log.error("流程执行异常: {}", e.getMessage(), e);
-            context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误");
-            // 完成流程执行（失败）
-            processExecutionRecordService.completeExecution(
-                    executionRecord.getExecutionId(),
-                    3, // 失败
-                    "系统内部错误: " + e.getMessage()
-            );
-        } finally {
-            // 记录执行上下文，用于重放
-            processExecutionRecordService.recordExecutionContext(
-                    executionRecord.getExecutionId(),
-                    context
-            );
+            log.error("写入请求日志失败: {}, {}", executionId, e.getMessage(), e);
         }
-        return context;
+        try {
+            executionJournal.complete(executionId, status, errorMessage, context);
+        } catch (Exception e) {
+            log.error("写入执行记录失败: {}, {}", executionId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 执行阶段
+     * 阶段内只有一个节点时直接在当前线程执行；多个节点时除第一个节点外通过{@link #dispatch}提交到并行线程池，全部完成后返回
+     * @param stage 阶段内的节点
+     * @param context 上下文
+     * @param executionId 执行ID
+     * @param asyncNodes 未等待的异步节点
+     * @return 执行结果
+     */
+    private CompletableFuture<Void> executeStage(List<PlanNode> stage, ProcessContext context, String executionId, Queue<AsyncNodeExecution> asyncNodes) {
+        if (stage.size() == 1) {
+            return executeNode(stage.get(0), context, executionId, asyncNodes);
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[stage.size()];
+        for (int i = 1; i < stage.size(); i++) {
+            PlanNode planNode = stage.get(i);
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            dispatch(() -> {
+                try {
+                    executeNode(planNode, context, executionId, asyncNodes).whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(result);
+                        }
+                    });
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }, 0, future::completeExceptionally);
+            futures[i] = future;
+        }
+        futures[0] = executeNode(stage.get(0), context, executionId, asyncNodes);
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 执行节点
+     * 节点在独立的节点视图中执行，执行完成后将执行状态合并到流程上下文；执行前先等待以该节点为等待点的异步节点
+     * @param planNode 流程计划中的节点
+     * @param context 上下文
+     * @param executionId 执行ID
+     * @param asyncNodes 未等待的异步节点
+     * @return 执行结果
+     */
+    private CompletableFuture<Void> executeNode(PlanNode planNode, ProcessContext context, String executionId, Queue<AsyncNodeExecution> asyncNodes) {
+        return joinAsyncNodes(asyncNodes, planNode.getNodeId(), context).thenCompose(v -> {
+            if (!context.isSuccess()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            // 更新当前节点
+            executionJournal.nodeStarted(executionId, planNode.getNodeId());
+            // 获取节点实现
+            Node node = planNode.getNode();
+            if (node == null) {
+                log.error("未找到节点实现: {}", planNode.getNodeId());
+                context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误: 未找到节点实现");
+                return CompletableFuture.completedFuture(null);
+            }
+            if (planNode.getConfigError() != null) {
+                log.error("节点配置无效: {}, 原因: {}", planNode.getNodeId(), planNode.getConfigError());
+                context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "系统内部错误: 节点配置无效");
+                return CompletableFuture.completedFuture(null);
+            }
+            ProcessContext nodeContext = context.forNode(planNode.getScope());
+            if (planNode.isAsyncExecution()) {
+                // 异步执行
+                asyncNodes.add(new AsyncNodeExecution(planNode, nodeContext, executeNodeAsync(planNode, nodeContext)));
+                return CompletableFuture.completedFuture(null);
+            }
+            // 同步执行
+            return executeNodeWithRetry(planNode, nodeContext)
+                    .thenAccept(success -> context.mergeFrom(nodeContext));
+        });
     }
 
     public static boolean isConfig(Map<String, Object> nodeConfigMap,String paramName) {
@@ -168,39 +372,123 @@ public class ProcessEngine {
     }
 
     /**
-     * 同步执行节点
-     * @param node 节点
+     * 执行节点（含重试）
+     * 首次执行在当前线程进行；失败后由重试调度线程按重试配置计时，到期后在并行线程池中重试，等待期间不占用线程
+     * @param planNode 流程计划中的节点
      * @param context 上下文
-     * @param nodeConfig 节点配置
+     * @return 节点是否执行成功
      */
-    private void executeNodeSync(Node node, ProcessContext context, SysProcessNodeConfigEntity nodeConfig) {
+    private CompletableFuture<Boolean> executeNodeWithRetry(PlanNode planNode, ProcessContext context) {
+        Node node = planNode.getNode();
         log.info("执行节点: {}-{}, 请求ID: {}", 
                 node.getNodeId(), node.getNodeName(), context.getRequestId());
+        long startNanos = System.nanoTime();
+        // 节点片段，父片段为节点视图创建时所在的流程片段
+        Span nodeSpan = tracer.startSpan("node " + planNode.getNodeId(), context.getSpan())
+                .setAttribute("processCode", planNode.getProcessCode())
+                .setAttribute("nodeId", planNode.getNodeId())
+                .setAttribute("requestId", context.getRequestId())
+                .setAttribute("executionId", context.getAttribute("executionId"))
+                .setAttribute("appKey", context.getAppKey())
+                .setAttribute("interfaceCode", context.getInterfaceCode())
+                .setAttribute("async", planNode.isAsyncExecution());
+        context.setSpan(nodeSpan);
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        attemptNode(planNode, context, 0, result);
+        // 返回记录指标后的结果，保证后续处理开始前节点耗时已记录
+        return result.whenComplete((success, throwable) -> {
+            processMetrics.recordNode(planNode.getProcessCode(), planNode.getNodeId(),
+                    Boolean.TRUE.equals(success) ? ProcessMetrics.OUTCOME_SUCCESS : ProcessMetrics.OUTCOME_FAILURE, System.nanoTime() - startNanos);
+            nodeSpan.setAttribute("errorMessage", context.getErrorMessage());
+            tracer.endSpan(nodeSpan, Boolean.TRUE.equals(success));
+        });
+    }
 
-        // 获取重试配置
-        RetryConfig retryConfig = getRetryConfig(nodeConfig.getRetryConfig());
-        int retryCount = 0;
+    /**
+     * 执行一次节点，失败且未达到最大重试次数时调度下一次重试
+     * 节点返回未完成的结果时（如等待全国节点响应），结果完成后提交到并行线程池继续处理，不占用完成结果的线程
+     * @param planNode 流程计划中的节点
+     * @param context 上下文
+     * @param retryCount 当前重试次数
+     * @param result 节点执行结果
+     */
+    private void attemptNode(PlanNode planNode, ProcessContext context, int retryCount, CompletableFuture<Boolean> result) {
+        if (context.isAbandoned()) {
+            // 异步节点已超时，不再执行
+            result.complete(false);
+            return;
+        }
+        Node node = planNode.getNode();
+        long startNanos = System.nanoTime();
+        CompletableFuture<Boolean> attempt;
+        try {
+            if (retryCount > 0) {
+                log.info("重试执行节点: {}-{}, 重试次数: {}, 请求ID: {}", 
+                        node.getNodeId(), node.getNodeName(), retryCount, context.getRequestId());
+            }
+            // 执行节点
+            attempt = node.executeAsync(context);
+        } catch (Exception e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        if (attempt.isDone()) {
+            completeAttempt(planNode, context, retryCount, startNanos, result, attempt);
+        } else {
+            CompletableFuture<Boolean> pending = attempt;
+            pending.whenComplete((success, throwable) -> dispatch(
+                    () -> completeAttempt(planNode, context, retryCount, startNanos, result, pending), 0,
+                    e -> failNode(planNode, context, result)));
+        }
+    }
 
+    /**
+     * 处理一次节点执行结果
+     * @param planNode 流程计划中的节点
+     * @param context 上下文
+     * @param retryCount 当前重试次数
+     * @param startNanos 本次执行开始时间
+     * @param result 节点执行结果
+     * @param attempt 本次执行结果（已完成）
+     */
+    private void completeAttempt(PlanNode planNode, ProcessContext context, int retryCount, long startNanos,
+                                 CompletableFuture<Boolean> result, CompletableFuture<Boolean> attempt) {
+        Node node = planNode.getNode();
+        RetryConfig retryConfig = planNode.getRetryConfig();
         boolean success = false;
-        while (!success && retryCount <= retryConfig.getMaxRetryCount()) {
-            try {
-                if (retryCount > 0) {
-                    // 重试等待
-                    Thread.sleep(retryConfig.getDelayMs(retryCount));
-                    log.info("重试执行节点: {}-{}, 重试次数: {}, 请求ID: {}", 
-                            node.getNodeId(), node.getNodeName(), retryCount, context.getRequestId());
-                }
+        String outcome = ProcessMetrics.OUTCOME_FAILURE;
+        try {
+            success = Boolean.TRUE.equals(attempt.join());
+            if (success) {
+                outcome = ProcessMetrics.OUTCOME_SUCCESS;
+            }
+        } catch (CompletionException | CancellationException e) {
+            outcome = ProcessMetrics.OUTCOME_ERROR;
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("节点执行异常: {}", cause.getMessage(), cause);
+            if (retryCount + 1 > retryConfig.getMaxRetryCount()) {
+                context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "节点执行异常: " + cause.getMessage());
+            }
+        }
+        processMetrics.recordAttempt(planNode.getProcessCode(), planNode.getNodeId(), retryCount > 0, outcome, System.nanoTime() - startNanos);
+        context.getSpan().setAttribute("retryCount", retryCount);
 
-                // 执行节点
-                success = node.execute(context);
-                retryCount++;
-            } catch (Exception e) {
-                log.error("节点执行异常: {}", e.getMessage(), e);
-                retryCount++;
-                if (retryCount > retryConfig.getMaxRetryCount()) {
-                    context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "节点执行异常: " + e.getMessage());
-                }
+        int nextRetryCount = retryCount + 1;
+        if (!success && context.isAbandoned()) {
+            log.warn("异步节点已超时，不再重试: {}-{}, 请求ID: {}", node.getNodeId(), node.getNodeName(), context.getRequestId());
+            result.complete(false);
+            return;
+        }
+        if (!success && nextRetryCount <= retryConfig.getMaxRetryCount()) {
+            // 重试等待，到期后提交到并行线程池执行
+            try {
+                retryScheduler.schedule(
+                        () -> dispatch(() -> attemptNode(planNode, context, nextRetryCount, result), 0,
+                                e -> failNode(planNode, context, result)),
+                        retryConfig.getDelayMs(nextRetryCount), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                failNode(planNode, context, result);
             }
+            return;
         }
 
         // 处理节点执行结果
@@ -208,32 +496,137 @@ public class ProcessEngine {
             // 节点执行失败且没有设置错误信息
             context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "节点执行失败: " + node.getNodeName());
         }
+        result.complete(success);
     }
 
     /**
-     * 异步执行节点
-     * @param node 节点
+     * 提交任务到并行线程池
+     * 线程池已满时由重试调度线程等待后重新提交，等待时间每次加倍（最长{@value #DISPATCH_RETRY_MAX_DELAY_MS}毫秒），
+     * 调度线程只负责提交，任务不会在调度线程或提交任务的线程中执行；引擎停止后无法提交时调用onRejected
+     * @param task 任务
+     * @param rejections 已被拒绝的次数
+     * @param onRejected 引擎停止无法提交时的处理
+     */
+    private void dispatch(Runnable task, int rejections, Consumer<RejectedExecutionException> onRejected) {
+        try {
+            parallelExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (parallelExecutor.isShutdown()) {
+                onRejected.accept(e);
+                return;
+            }
+            long delayMs = Math.min(DISPATCH_RETRY_DELAY_MS << Math.min(rejections, 10), DISPATCH_RETRY_MAX_DELAY_MS);
+            if (rejections == 0) {
+                log.warn("并行线程池已满，{}ms后重新提交任务", delayMs);
+            }
+            try {
+                retryScheduler.schedule(() -> dispatch(task, rejections + 1, onRejected), delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException schedulerRejected) {
+                onRejected.accept(schedulerRejected);
+            }
+        }
+    }
+
+    /**
+     * 节点无法继续执行（引擎已停止）时标记失败
+     * @param planNode 流程计划中的节点
      * @param context 上下文
-     * @param nodeConfig 节点配置
+     * @param result 节点执行结果
+     */
+    private void failNode(PlanNode planNode, ProcessContext context, CompletableFuture<Boolean> result) {
+        log.error("节点重试调度失败: {}-{}, 请求ID: {}", planNode.getNodeId(), planNode.getNodeName(), context.getRequestId());
+        context.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "节点执行失败: " + planNode.getNodeName());
+        result.complete(false);
+    }
+
+    /**
+     * 异步执行节点
+     * 节点在独立的节点视图中执行（包含重试），配置了timeoutMs时超时视为失败；
+     * 超时后放弃节点视图，仍在执行的节点不再重试，之后的中间数据写入被忽略
+     * @param planNode 流程计划中的节点
+     * @param nodeContext 节点视图
+     * @return 节点执行结果
      */
-    private void executeNodeAsync(Node node, ProcessContext context, SysProcessNodeConfigEntity nodeConfig) {
+    private CompletableFuture<Boolean> executeNodeAsync(PlanNode planNode, ProcessContext nodeContext) {
+        Node node = planNode.getNode();
         log.info("异步执行节点: {}-{}, 请求ID: {}", 
-                node.getNodeId(), node.getNodeName(), context.getRequestId());
+                node.getNodeId(), node.getNodeName(), nodeContext.getRequestId());
 
-        // 异步执行的结果处理可能需要额外的设计，这里简化处理
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 执行节点
-                boolean success = node.execute(context);
-                if (!success) {
-                    log.error("异步节点执行失败: {}-{}, 请求ID: {}", 
-                            node.getNodeId(), node.getNodeName(), context.getRequestId());
-                    // 异步节点失败可能需要特殊处理，这里简化处理
-                }
-            } catch (Exception e) {
-                log.error("异步节点执行异常: {}", e.getMessage(), e);
+        CompletableFuture<Boolean> future = CompletableFuture
+                .supplyAsync(() -> executeNodeWithRetry(planNode, nodeContext), asyncExecutor)
+                .thenCompose(Function.identity());
+        if (planNode.getTimeoutMs() > 0) {
+            future = future.orTimeout(planNode.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .whenComplete((success, throwable) -> {
+                        if (throwable instanceof TimeoutException) {
+                            nodeContext.abandon();
+                        }
+                    });
+        }
+        return future;
+    }
+
+    /**
+     * 等待异步节点并合并执行状态
+     * @param asyncNodes 未等待的异步节点
+     * @param joinAt 等待点节点ID，为null时等待除不阻塞请求之外的所有异步节点
+     * @param context 上下文
+     * @return 等待结果，异步节点全部完成并合并后完成
+     */
+    private CompletableFuture<Void> joinAsyncNodes(Queue<AsyncNodeExecution> asyncNodes, String joinAt, ProcessContext context) {
+        if (asyncNodes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<AsyncNodeExecution> joined = new ArrayList<>();
+        Iterator<AsyncNodeExecution> iterator = asyncNodes.iterator();
+        while (iterator.hasNext()) {
+            AsyncNodeExecution asyncNode = iterator.next();
+            PlanNode planNode = asyncNode.getPlanNode();
+            boolean matched = joinAt == null ? !planNode.isDetached() : joinAt.equals(planNode.getJoinAt());
+            if (matched) {
+                iterator.remove();
+                joined.add(asyncNode);
             }
-        }, asyncExecutor);
+        }
+        if (joined.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] futures = joined.stream().map(AsyncNodeExecution::getFuture).toArray(CompletableFuture<?>[]::new);
+        return CompletableFuture.allOf(futures).handle((result, throwable) -> {
+            for (AsyncNodeExecution asyncNode : joined) {
+                awaitAsyncNode(asyncNode);
+                context.mergeFrom(asyncNode.getNodeContext());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 获取已完成的异步节点结果，超时或异常时标记节点视图失败
+     * @param asyncNode 异步节点
+     * @return 是否执行成功
+     */
+    private boolean awaitAsyncNode(AsyncNodeExecution asyncNode) {
+        PlanNode planNode = asyncNode.getPlanNode();
+        ProcessContext nodeContext = asyncNode.getNodeContext();
+        try {
+            asyncNode.getFuture().join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                log.error("异步节点执行超时: {}-{}, 超时时间: {}ms, 请求ID: {}",
+                        planNode.getNodeId(), planNode.getNodeName(), planNode.getTimeoutMs(), nodeContext.getRequestId());
+                nodeContext.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "异步节点执行超时: " + planNode.getNodeName());
+            } else {
+                log.error("异步节点执行异常: {}", cause.getMessage(), cause);
+                nodeContext.markFailure(ResultCode.SYSTEM_ERROR.getCode(), "异步节点执行异常: " + cause.getMessage());
+            }
+        }
+        if (!nodeContext.isSuccess()) {
+            log.error("异步节点执行失败: {}-{}, 请求ID: {}",
+                    planNode.getNodeId(), planNode.getNodeName(), nodeContext.getRequestId());
+        }
+        return nodeContext.isSuccess();
     }
 
     /**
@@ -246,13 +639,13 @@ public class ProcessEngine {
         ProcessContext context=new ProcessContext();
         try {
             // 获取执行记录
-            SysProcessExecutionRecordEntity executionRecord = processExecutionRecordService.getByExecutionId(executionId);
+            SysProcessExecutionRecordEntity executionRecord = executionJournal.getByExecutionId(executionId);
             if(executionRecord==null){
                throw  new RuntimeException("执行记录不存在: " + executionId);
             }
 
             // 恢复上下文
-            context = processExecutionRecordService.restoreContext(executionId);
+            context = processExecutionRecordService.restoreContext(executionRecord);
 
             // 执行流程
             return executeProcess(executionRecord.getProcessCode(), context);
@@ -264,58 +657,18 @@ public class ProcessEngine {
     }
 
     /**
-     * 获取重试配置
-     * @param retryConfigJson 重试配置JSON字符串
-     * @return 重试配置
+     * 执行中的异步节点
      */
-    private RetryConfig getRetryConfig(String retryConfigJson) {
-        if (retryConfigJson == null || retryConfigJson.isEmpty()) {
-            // 默认重试配置=》不重试
-            return new RetryConfig(0, 1000, 2.0);
-        }
-
-        try {
-            Map<String, Object> configMap = JSON.parseObject(retryConfigJson, Map.class);
-            int maxRetryCount = configMap.containsKey("maxRetryCount") ? 
-                    ((Number) configMap.get("maxRetryCount")).intValue() : 3;
-            int initialDelay = configMap.containsKey("initialDelay") ? 
-                    ((Number) configMap.get("initialDelay")).intValue() : 1000;
-            double multiplier = configMap.containsKey("multiplier") ? 
-                    ((Number) configMap.get("multiplier")).doubleValue() : 2.0;
-            
-            return new RetryConfig(maxRetryCount, initialDelay, multiplier);
-        } catch (Exception e) {
-            log.error("解析重试配置失败: {}", e.getMessage());
-            // 返回默认重试配置
-            return new RetryConfig(3, 1000, 2.0);
-        }
-    }
-
-    /**
-     * 重试配置内部类
-     */
-    private static class RetryConfig {
-        private final int maxRetryCount; // 最大重试次数
-        private final int initialDelay; // 初始延迟（毫秒）
-        private final double multiplier; // 延迟倍数
-
-        public RetryConfig(int maxRetryCount, int initialDelay, double multiplier) {
-            this.maxRetryCount = maxRetryCount;
-            this.initialDelay = initialDelay;
-            this.multiplier = multiplier;
-        }
-
-        /**
-         * 获取指定重试次数的延迟时间（指数退避）
-         * @param retryCount 重试次数
-         * @return 延迟时间（毫秒）
-         */
-        public long getDelayMs(int retryCount) {
-            return (long) (initialDelay * Math.pow(multiplier, retryCount - 1));
-        }
+    @Getter
+    private static class AsyncNodeExecution {
+        private final PlanNode planNode;
+        private final ProcessContext nodeContext;
+        private final CompletableFuture<Boolean> future;
 
-        public int getMaxRetryCount() {
-            return maxRetryCount;
+        AsyncNodeExecution(PlanNode planNode, ProcessContext nodeContext, CompletableFuture<Boolean> future) {
+            this.planNode = planNode;
+            this.nodeContext = nodeContext;
+            this.future = future;
         }
     }
 
@@ -0,0 +1,90 @@
+package com.example.provincialnode.processor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流程执行指标
+ * 记录流程、节点（含重试）和每次节点执行的耗时，按processCode、nodeId、outcome打标签，
+ * 发布p50/p95/p99分位数和直方图，可通过/actuator/metrics和/actuator/prometheus查看
+ * 指标：
+ *   process.duration：流程总耗时
+ *   process.node.duration：节点耗时，包含重试等待
+ *   process.node.attempt：单次节点执行耗时，attempt标签区分首次执行（first）和重试（retry）
+ */
+@Component
+public class ProcessMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_ERROR = "error";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 计时器缓存，避免每次记录都重新构建
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 记录流程耗时
+     * @param processCode 流程编码
+     * @param outcome 执行结果
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordProcess(String processCode, String outcome, long nanos) {
+        record("process.duration", "流程执行耗时", nanos,
+                "processCode", processCode, "outcome", outcome);
+    }
+
+    /**
+     * 记录节点耗时（包含重试）
+     * @param processCode 流程编码
+     * @param nodeId 节点ID
+     * @param outcome 执行结果
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordNode(String processCode, String nodeId, String outcome, long nanos) {
+        record("process.node.duration", "节点执行耗时（包含重试）", nanos,
+                "processCode", processCode, "nodeId", nodeId, "outcome", outcome);
+    }
+
+    /**
+     * 记录单次节点执行耗时
+     * @param processCode 流程编码
+     * @param nodeId 节点ID
+     * @param retry 是否为重试
+     * @param outcome 执行结果
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordAttempt(String processCode, String nodeId, boolean retry, String outcome, long nanos) {
+        record("process.node.attempt", "单次节点执行耗时", nanos,
+                "processCode", processCode, "nodeId", nodeId, "attempt", retry ? "retry" : "first", "outcome", outcome);
+    }
+
+    private void record(String name, String description, long nanos, String... tags) {
+        if (meterRegistry == null) {
+            return;
+        }
+        for (int i = 1; i < tags.length; i += 2) {
+            if (tags[i] == null) {
+                tags[i] = "unknown";
+            }
+        }
+        String key = name + '|' + String.join("|", tags);
+        Timer timer = timers.computeIfAbsent(key, k -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
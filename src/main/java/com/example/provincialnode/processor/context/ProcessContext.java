@@ -1,17 +1,33 @@
 package com.example.provincialnode.processor.context;
 
+import com.alibaba.fastjson.annotation.JSONField;
+import com.example.provincialnode.common.trace.Span;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 处理上下文类
  * 在接口处理流程中传递和存储中间状态、数据和结果
+ * 中间数据存储为线程安全的Map，可被并行执行的节点共享；节点级配置（节点配置、输入输出参数名称等）保存在节点视图中，
+ * 由流程引擎通过{@link #forNode(Map)}为每个节点创建
+ * 请求参数不复制到中间数据存储中，读取参数名称requestParams时直接返回请求参数；
+ * 节点输出的中间数据在不再被后续节点读取后由流程引擎通过{@link #releaseAttributes(List)}释放，减少内存占用和执行记录大小
  */
 @Data
 public class ProcessContext {
 
+    // 请求参数的参数名称
+    private static final String REQUEST_PARAMS = "requestParams";
+
     // 请求ID
     private String requestId;
 
@@ -20,7 +36,7 @@ public class ProcessContext {
 
     private String interfacePath;
     // AppKey
-    private String appKey;
+    private volatile String appKey;
 
     // 请求参数
     private Map<String, Object> requestParams = new HashMap<>();
@@ -29,35 +45,80 @@ public class ProcessContext {
     private Object responseData;
 
     // 处理状态
-    private boolean success = true;
+    private volatile boolean success = true;
 
     // 错误信息
-    private String errorMessage;
+    private volatile String errorMessage;
 
     // 错误码
-    private String errorCode;
+    private volatile String errorCode;
 
     // 中间数据存储
-    private Map<String, Object> attributes = new HashMap<>();
+    private Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    // 节点级属性（只读），仅存在于节点视图中，不参与序列化
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Map<String, Object> nodeScope;
+
+    // 当前跟踪片段：流程上下文中为流程片段（执行前为上游传入的远程片段），节点视图中为节点片段，不参与序列化
+    @JSONField(serialize = false, deserialize = false)
+    @ToString.Exclude
+    private transient Span span;
+
+    // 节点视图是否已被放弃（异步节点超时），放弃后不再写入共享的中间数据，不参与序列化
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile boolean abandoned;
+
+    // 执行状态锁，使用ReentrantLock而不是synchronized，避免虚拟线程被固定在载体线程上
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final transient ReentrantLock stateLock = new ReentrantLock();
+
+    /**
+     * 设置中间数据存储，复制为线程安全的Map
+     * @param attributes 中间数据
+     */
+    public void setAttributes(Map<String, Object> attributes) {
+        this.attributes = new ConcurrentHashMap<>();
+        if (attributes != null) {
+            attributes.forEach(this::setAttribute);
+        }
+    }
 
     /**
      * 设置属性
      * @param key 属性键
-     * @param value 属性值
+     * @param value 属性值，为null时移除该属性
      */
     public void setAttribute(String key, Object value) {
-        attributes.put(key, value);
+        if (key == null || abandoned) {
+            return;
+        }
+        if (value == null) {
+            attributes.remove(key);
+        } else {
+            attributes.put(key, value);
+        }
     }
 
     /**
-     * 获取属性
+     * 获取属性，节点视图中优先返回节点级属性
      * @param key 属性键
      * @param <T> 属性类型
      * @return 属性值
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttribute(String key) {
-        return (T) attributes.get(key);
+        if (key == null) {
+            return null;
+        }
+        if (nodeScope != null && nodeScope.containsKey(key)) {
+            return (T) nodeScope.get(key);
+        }
+        return (T) getParam(key);
     }
 
     /**
@@ -70,7 +131,7 @@ public class ProcessContext {
     public <T> T getAttributeByParamName(String paramName) {
         //获取参数名称
         String key = getAttribute(paramName);
-        return (T) attributes.get(key);
+        return key == null ? null : (T) getParam(key);
     }
 
     /**
@@ -80,7 +141,7 @@ public class ProcessContext {
     public void setAttributeByParamName(String paramName,Object value) {
         //获取参数名称
         String key = getAttribute(paramName);
-        attributes.put(key,value);
+        setAttribute(key, value);
     }
 
     /**
@@ -90,7 +151,32 @@ public class ProcessContext {
     public void removeAttributeByParamName(String paramName) {
         //获取参数名称
         String key = getAttribute(paramName);
-        attributes.remove(key);
+        if (key != null && !abandoned) {
+            attributes.remove(key);
+        }
+    }
+
+    /**
+     * 释放不再使用的中间数据
+     * @param keys 属性键
+     */
+    public void releaseAttributes(List<String> keys) {
+        for (String key : keys) {
+            attributes.remove(key);
+        }
+    }
+
+    /**
+     * 按参数名称取值，requestParams未被节点输出覆盖时对应请求参数
+     * @param key 参数名称
+     * @return 参数值
+     */
+    private Object getParam(String key) {
+        Object value = attributes.get(key);
+        if (value == null && REQUEST_PARAMS.equals(key)) {
+            return requestParams;
+        }
+        return value;
     }
 
     /**
@@ -98,6 +184,9 @@ public class ProcessContext {
      * @param key 属性键
      */
     public void removeAttribute(String key) {
+        if (abandoned) {
+            return;
+        }
         attributes.remove(key);
     }
 
@@ -116,9 +205,60 @@ public class ProcessContext {
      * @param errorMessage 错误消息
      */
     public void markFailure(String errorCode, String errorMessage) {
-        this.success = false;
-        this.errorCode = errorCode;
-        this.errorMessage = errorMessage;
+        stateLock.lock();
+        try {
+            this.success = false;
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * 创建节点视图
+     * 视图与当前上下文共享请求参数和中间数据存储，节点级属性仅对该视图可见，执行状态独立记录，节点执行后通过{@link #mergeFrom(ProcessContext)}合并
+     * @param nodeScope 节点级属性
+     * @return 节点视图
+     */
+    public ProcessContext forNode(Map<String, Object> nodeScope) {
+        ProcessContext view = new ProcessContext();
+        view.requestId = requestId;
+        view.interfaceCode = interfaceCode;
+        view.interfacePath = interfacePath;
+        view.appKey = appKey;
+        view.requestParams = requestParams;
+        view.attributes = attributes;
+        view.nodeScope = nodeScope;
+        view.span = span;
+        return view;
+    }
+
+    /**
+     * 放弃节点视图
+     * 异步节点超时后流程不再等待其结果，视图之后的中间数据写入被忽略，避免在中间数据释放或执行上下文序列化后写入
+     */
+    public void abandon() {
+        abandoned = true;
+    }
+
+    /**
+     * 合并节点视图的执行状态，只保留第一个失败节点的错误信息
+     * @param nodeContext 节点视图
+     */
+    public void mergeFrom(ProcessContext nodeContext) {
+        stateLock.lock();
+        try {
+            if (!nodeContext.isSuccess() && success) {
+                markFailure(nodeContext.getErrorCode(), nodeContext.getErrorMessage());
+            }
+            String nodeAppKey = nodeContext.getAppKey();
+            if (nodeAppKey != null && !nodeAppKey.equals(appKey)) {
+                appKey = nodeAppKey;
+            }
+        } finally {
+            stateLock.unlock();
+        }
     }
 
 }
\ No newline at end of file
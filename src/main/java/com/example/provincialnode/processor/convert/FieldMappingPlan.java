@@ -0,0 +1,274 @@
+package com.example.provincialnode.processor.convert;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的字段名称转换规则
+ * 转换规则JSON在节点配置加载后编译一次，请求处理时按规则转换数据，不再解析规则配置
+ * 规则格式：
+ *   {"orgCode": "organizationCode", "addressInfo": {"city": "cityName"}}
+ *   值为字符串时将该字段重命名，在数据的每一层都生效；
+ *   值为对象时该字段名称不变，字段值按对象中的规则转换（同时继承上层的重命名规则）
+ * 支持三种转换方式：
+ *   {@link #convert(Object)} 复制转换，生成新的数据，源数据不变；
+ *   {@link #convertInPlace(Object)} 原地转换，直接重命名源数据中的字段，不复制未变化的数据，要求源数据可修改；
+ *   {@link #convertStream(Reader, Writer)} 流式转换，逐个读取JSON文本的词法单元并写出，不构建对象树，内存占用与输入输出JSON文本的大小成正比
+ */
+public final class FieldMappingPlan {
+
+    // 流式转换不关闭调用方传入的输入输出
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final FieldMappingPlan EMPTY = new FieldMappingPlan(Collections.emptyMap(), Collections.emptyMap());
+
+    // 字段重命名规则：源字段名 -> 目标字段名
+    private final Map<String, String> renames;
+
+    // 字段值的转换规则：字段名 -> 子规则，未配置的字段沿用当前规则
+    private final Map<String, FieldMappingPlan> children;
+
+    private FieldMappingPlan(Map<String, String> renames, Map<String, FieldMappingPlan> children) {
+        this.renames = renames;
+        this.children = children;
+    }
+
+    /**
+     * 编译转换规则
+     * @param convertRulesJson 转换规则JSON
+     * @return 编译后的转换规则
+     */
+    public static FieldMappingPlan compile(String convertRulesJson) {
+        JSONObject convertRules = JSON.parseObject(convertRulesJson);
+        if (convertRules == null || convertRules.isEmpty()) {
+            return EMPTY;
+        }
+        return compile(convertRules, Collections.emptyMap());
+    }
+
+    private static FieldMappingPlan compile(JSONObject rules, Map<String, String> inheritedRenames) {
+        Map<String, String> renames = new HashMap<>(inheritedRenames);
+        Map<String, JSONObject> nestedRules = new HashMap<>(4);
+        for (Map.Entry<String, Object> entry : rules.entrySet()) {
+            Object rule = entry.getValue();
+            if (rule instanceof JSONObject) {
+                nestedRules.put(entry.getKey(), (JSONObject) rule);
+            } else if (rule != null) {
+                renames.put(entry.getKey(), rule.toString());
+            }
+        }
+        // 目标字段名与源字段名相同的规则无需处理
+        renames.entrySet().removeIf(entry -> entry.getKey().equals(entry.getValue()));
+        Map<String, FieldMappingPlan> children = new HashMap<>(nestedRules.size() * 2);
+        for (Map.Entry<String, JSONObject> entry : nestedRules.entrySet()) {
+            children.put(entry.getKey(), compile(entry.getValue(), renames));
+        }
+        return new FieldMappingPlan(Collections.unmodifiableMap(renames), Collections.unmodifiableMap(children));
+    }
+
+    public boolean isEmpty() {
+        return renames.isEmpty() && children.isEmpty();
+    }
+
+    /**
+     * 获取目标字段名
+     * @param fieldName 源字段名
+     * @return 目标字段名，无需转换时返回源字段名
+     */
+    public String targetName(String fieldName) {
+        return renames.getOrDefault(fieldName, fieldName);
+    }
+
+    /**
+     * 获取字段值的转换规则
+     * @param fieldName 源字段名
+     * @return 转换规则
+     */
+    public FieldMappingPlan childPlan(String fieldName) {
+        return children.isEmpty() ? this : children.getOrDefault(fieldName, this);
+    }
+
+    /**
+     * 复制转换：Map转换为新的Map（JSONObject仍为JSONObject），集合和对象数组转换为JSONArray，其余值原样保留
+     * @param source 源数据，可以为null
+     * @return 转换后的数据
+     */
+    public Object convert(Object source) {
+        if (source instanceof Map) {
+            return convertMap((Map<?, ?>) source);
+        }
+        if (source instanceof List) {
+            List<?> list = (List<?>) source;
+            JSONArray target = new JSONArray(list.size());
+            for (Object item : list) {
+                target.add(convert(item));
+            }
+            return target;
+        }
+        if (source instanceof Object[]) {
+            Object[] array = (Object[]) source;
+            JSONArray target = new JSONArray(array.length);
+            for (Object item : array) {
+                target.add(convert(item));
+            }
+            return target;
+        }
+        if (source instanceof Iterable) {
+            JSONArray target = new JSONArray();
+            for (Object item : (Iterable<?>) source) {
+                target.add(convert(item));
+            }
+            return target;
+        }
+        // 基本类型、字符串、基本类型数组等不含字段名的数据，原样返回
+        return source;
+    }
+
+    private Map<String, Object> convertMap(Map<?, ?> source) {
+        int capacity = (int) (source.size() / 0.75f) + 1;
+        Map<String, Object> target = source instanceof JSONObject ? new JSONObject(capacity) : new HashMap<>(capacity);
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            String fieldName = String.valueOf(entry.getKey());
+            target.put(targetName(fieldName), childPlan(fieldName).convert(entry.getValue()));
+        }
+        return target;
+    }
+
+    /**
+     * 原地转换：直接重命名源数据中的字段，Map、集合和数组保持原对象
+     * @param source 源数据，可以为null
+     */
+    public void convertInPlace(Object source) {
+        if (source instanceof Map) {
+            renameInPlace(castMap(source));
+        } else if (source instanceof Iterable) {
+            for (Object item : (Iterable<?>) source) {
+                convertInPlace(item);
+            }
+        } else if (source instanceof Object[]) {
+            for (Object item : (Object[]) source) {
+                convertInPlace(item);
+            }
+        }
+    }
+
+    private void renameInPlace(Map<Object, Object> source) {
+        List<Object> renamedKeys = null;
+        for (Map.Entry<Object, Object> entry : source.entrySet()) {
+            Object key = entry.getKey();
+            childPlan(String.valueOf(key)).convertInPlace(entry.getValue());
+            if (renames.containsKey(key)) {
+                if (renamedKeys == null) {
+                    renamedKeys = new ArrayList<>(4);
+                }
+                renamedKeys.add(key);
+            }
+        }
+        if (renamedKeys == null) {
+            return;
+        }
+        // 先全部移除再放入，避免a->b、b->c这类链式规则互相覆盖
+        Object[] values = new Object[renamedKeys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = source.remove(renamedKeys.get(i));
+        }
+        for (int i = 0; i < values.length; i++) {
+            source.put(renames.get(renamedKeys.get(i)), values[i]);
+        }
+    }
+
+    /**
+     * 流式转换JSON字符串
+     * @param json JSON字符串
+     * @return 转换后的JSON字符串
+     * @throws IOException JSON格式错误
+     */
+    public String convertJson(String json) throws IOException {
+        StringWriter target = new StringWriter(json.length() + 16);
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            convertStream(parser, target);
+        }
+        return target.toString();
+    }
+
+    /**
+     * 流式转换：从输入逐个读取JSON词法单元，字段名按规则转换后写出，其余内容原样写出（数字保留原始文本）
+     * @param source JSON输入
+     * @param target 转换结果输出
+     * @throws IOException JSON格式错误或读写失败
+     */
+    public void convertStream(Reader source, Writer target) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(source)) {
+            convertStream(parser, target);
+        }
+    }
+
+    private void convertStream(JsonParser parser, Writer target) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(target)) {
+            // 每层对象或数组使用的转换规则
+            Deque<FieldMappingPlan> scopes = new ArrayDeque<>();
+            // 下一个值使用的转换规则
+            FieldMappingPlan valuePlan = this;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case FIELD_NAME:
+                        FieldMappingPlan scope = scopes.peek();
+                        String fieldName = parser.getCurrentName();
+                        generator.writeFieldName(scope.targetName(fieldName));
+                        valuePlan = scope.childPlan(fieldName);
+                        break;
+                    case START_OBJECT:
+                        scopes.push(valuePlan);
+                        generator.writeStartObject();
+                        break;
+                    case START_ARRAY:
+                        scopes.push(valuePlan);
+                        generator.writeStartArray();
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        scopes.pop();
+                        generator.copyCurrentEvent(parser);
+                        valuePlan = scopes.isEmpty() ? this : scopes.peek();
+                        break;
+                    case VALUE_NUMBER_INT:
+                    case VALUE_NUMBER_FLOAT:
+                        // 按原始文本写出，避免金额等小数转换为double丢失精度
+                        generator.writeNumber(parser.getText());
+                        break;
+                    default:
+                        generator.copyCurrentEvent(parser);
+                        break;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> castMap(Object source) {
+        return (Map<Object, Object>) source;
+    }
+}
@@ -122,6 +122,12 @@ public class ExceptionHandlerNode implements Node {
         // 通用异常处理逻辑
     }
 
+    @Override
+    public boolean isBarrier() {
+        // 依赖之前所有节点的执行结果
+        return true;
+    }
+
     @Override
     public String getNodeId() {
         return NODE_ID;
@@ -2,24 +2,30 @@ package com.example.provincialnode.processor.nodes;
 
 import com.example.provincialnode.common.ResultCode;
 import com.example.provincialnode.processor.Node;
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
+import com.example.provincialnode.processor.ProcessEngine;
 import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.processor.convert.FieldMappingPlan;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 字段名称转换节点
  * 将输入数据中的字段名称根据配置规则转换为目标字段名称
- * 支持普通对象、数组和嵌套对象的字段转换
+ * 支持普通对象、数组和嵌套对象的字段转换，转换规则编译为{@link FieldMappingPlan}后缓存
  * node_config字段配置示例：
  * {
- *   "convertRules": "{\"orgCode\":\"organizationCode\",\"userName\":\"username\",\"addressInfo\":{\"city\":\"cityName\"}}"
+ *   "convertRules": "{\"orgCode\":\"organizationCode\",\"userName\":\"username\",\"addressInfo\":{\"city\":\"cityName\"}}",
+ *   "convertMode": "copy"
  * }
+ * convertMode：copy（默认，复制转换，输入数据不变）、inPlace（原地重命名输入数据中的字段，不复制数据）、
+ *   stream（流式转换JSON字符串，不构建对象，适用于批量上传等大数据量接口；输入为Map时转换dataSource配置的字段，
+ *   如解密后的"data"，输入为字符串时转换字符串本身）
  */
 @Slf4j
 @Component("fieldNameConvertNode")
@@ -28,6 +34,16 @@ public class FieldNameConvertNode implements Node {
     private static final String NODE_ID = "fieldNameConvertNode";
     private static final String NODE_NAME = "字段名称转换节点";
 
+    private static final String MODE_IN_PLACE = "inPlace";
+    private static final String MODE_STREAM = "stream";
+
+    private static final String dataSource = "dataSource";
+
+    // 编译后的转换规则，按规则配置缓存，流程配置刷新后旧规则按容量淘汰
+    private final Cache<String, FieldMappingPlan> mappingPlans = Caffeine.newBuilder()
+            .maximumSize(256)
+            .build();
+
     @Override
     public boolean execute(ProcessContext context) {
         log.info("执行字段名称转换节点: {}", context.getRequestId());
@@ -40,9 +56,8 @@ public class FieldNameConvertNode implements Node {
                 return true;
             }
             
-            // 解析转换规则
-            String convertRulesJson = nodeConfig.get("convertRules").toString();
-            JSONObject convertRules = JSON.parseObject(convertRulesJson);
+            // 获取编译后的转换规则
+            FieldMappingPlan mappingPlan = getMappingPlan(nodeConfig.get("convertRules").toString());
             
             // 获取要转换的数据
             Object sourceData = context.getAttributeByParamName(Node.inParamName);
@@ -51,7 +66,16 @@ public class FieldNameConvertNode implements Node {
                 return true;
             }
             // 执行字段转换
-            Object convertedData = convertFields(sourceData, convertRules);
+            Object convertedData;
+            Object convertMode = nodeConfig.get("convertMode");
+            if (MODE_STREAM.equals(convertMode)) {
+                convertedData = convertStream(sourceData, nodeConfig, mappingPlan);
+            } else if (MODE_IN_PLACE.equals(convertMode)) {
+                mappingPlan.convertInPlace(sourceData);
+                convertedData = sourceData;
+            } else {
+                convertedData = mappingPlan.convert(sourceData);
+            }
             
             // 将转换后的数据放回指定的目标位置
             context.setAttributeByParamName(Node.outParamName, convertedData);
@@ -63,110 +87,48 @@ public class FieldNameConvertNode implements Node {
             return false;
         }
     }
-    
+
     /**
-     * 根据转换规则递归转换字段名称
-     * 
-     * @param sourceData 源数据
-     * @param convertRules 转换规则
-     * @return 转换后的数据
+     * inPlace模式原地重命名输入数据中的字段，流程计划中视为输入参数的写入者，避免与读取同一参数的节点并行执行
      */
-    private Object convertFields(Object sourceData, JSONObject convertRules) {
-        if (sourceData == null) {
-            return null;
-        }
-        
-        // 处理JSON对象
-        if (sourceData instanceof JSONObject) {
-            JSONObject sourceObj = (JSONObject) sourceData;
-            JSONObject targetObj = new JSONObject();
-            
-            for (String key : sourceObj.keySet()) {
-                Object value = sourceObj.get(key);
-                
-                // 检查是否有该字段的转换规则
-                String targetKey = convertRules.containsKey(key) ? 
-                        convertRules.getString(key) : key;
-                
-                // 递归处理嵌套对象或数组
-                if (value instanceof JSONObject || value instanceof JSONArray || 
-                        value instanceof Map || value.getClass().isArray() || value instanceof Iterable) {
-                    targetObj.put(targetKey, convertFields(value, convertRules));
-                } else {
-                    targetObj.put(targetKey, value);
-                }
-            }
-            
-            return targetObj;
-        }
-        
-        // 处理Map
-        if (sourceData instanceof Map) {
-            Map<String, Object> sourceMap = (Map<String, Object>) sourceData;
-            Map<String, Object> targetMap = new HashMap<>();
-            
-            for (Map.Entry<String, Object> entry : sourceMap.entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-                
-                // 检查是否有该字段的转换规则
-                String targetKey = convertRules.containsKey(key) ? 
-                        convertRules.getString(key) : key;
-                
-                // 递归处理嵌套对象或数组
-                if (value instanceof JSONObject || value instanceof JSONArray || 
-                        value instanceof Map || value.getClass().isArray() || value instanceof Iterable) {
-                    targetMap.put(targetKey, convertFields(value, convertRules));
-                } else {
-                    targetMap.put(targetKey, value);
-                }
-            }
-            
-            return targetMap;
-        }
-        
-        // 处理JSON数组
-        if (sourceData instanceof JSONArray) {
-            JSONArray sourceArray = (JSONArray) sourceData;
-            JSONArray targetArray = new JSONArray();
-            
-            for (int i = 0; i < sourceArray.size(); i++) {
-                Object item = sourceArray.get(i);
-                // 递归处理数组中的每个元素
-                targetArray.add(convertFields(item, convertRules));
-            }
-            
-            return targetArray;
+    @Override
+    public boolean mutatesInput(Map<String, Object> nodeConfig) {
+        return MODE_IN_PLACE.equals(nodeConfig.get("convertMode"));
+    }
+
+    /**
+     * 流式转换JSON字符串
+     * @param sourceData 输入数据，JSON字符串或包含JSON字符串字段的Map
+     * @param nodeConfig 节点配置
+     * @param mappingPlan 转换规则
+     * @return 转换后的数据，输入为Map时返回替换了该字段的新Map
+     * @throws IOException JSON格式错误
+     */
+    private Object convertStream(Object sourceData, Map<String, Object> nodeConfig, FieldMappingPlan mappingPlan) throws IOException {
+        if (sourceData instanceof String) {
+            return mappingPlan.convertJson((String) sourceData);
         }
-        
-        // 处理Java数组
-        if (sourceData.getClass().isArray()) {
-            int length = java.lang.reflect.Array.getLength(sourceData);
-            JSONArray targetArray = new JSONArray();
-            
-            for (int i = 0; i < length; i++) {
-                Object item = java.lang.reflect.Array.get(sourceData, i);
-                // 递归处理数组中的每个元素
-                targetArray.add(convertFields(item, convertRules));
-            }
-            
-            return targetArray;
+        if (!(sourceData instanceof Map) || !ProcessEngine.isConfig(nodeConfig, dataSource)) {
+            throw new IllegalArgumentException("流式转换的输入数据必须为JSON字符串，或配置dataSource指定JSON字符串字段");
         }
-        
-        // 处理Iterable集合
-        if (sourceData instanceof Iterable) {
-            JSONArray targetArray = new JSONArray();
-            
-            for (Object item : (Iterable<?>) sourceData) {
-                // 递归处理集合中的每个元素
-                targetArray.add(convertFields(item, convertRules));
-            }
-            
-            return targetArray;
+        String paramKey = nodeConfig.get(dataSource).toString();
+        Map<?, ?> sourceMap = (Map<?, ?>) sourceData;
+        Object json = sourceMap.get(paramKey);
+        if (!(json instanceof String)) {
+            throw new IllegalArgumentException("字段 " + paramKey + " 不是JSON字符串");
         }
-        
-        // 基本数据类型或不支持的数据类型，直接返回
-        return sourceData;
+        Map<Object, Object> result = new HashMap<>(sourceMap);
+        result.put(paramKey, mappingPlan.convertJson((String) json));
+        return result;
+    }
+
+    /**
+     * 获取编译后的转换规则，同一份规则配置只编译一次
+     * @param convertRulesJson 转换规则JSON
+     * @return 编译后的转换规则
+     */
+    private FieldMappingPlan getMappingPlan(String convertRulesJson) {
+        return mappingPlans.get(convertRulesJson, FieldMappingPlan::compile);
     }
 
     @Override
@@ -2,9 +2,8 @@ package com.example.provincialnode.processor.nodes;
 
 import com.example.provincialnode.entity.SysRequestLogEntity;
 import com.example.provincialnode.processor.Node;
-import com.alibaba.fastjson.JSON;
 import com.example.provincialnode.processor.context.ProcessContext;
-import com.example.provincialnode.service.SysRequestLogService;
+import com.example.provincialnode.service.RequestLogWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -14,14 +13,14 @@ import java.util.UUID;
 
 /**
  * 请求日志记录节点
- * 负责记录每次接口请求的详细信息
+ * 负责记录每次接口请求的详细信息，日志由RequestLogWriter异步批量写入
  */
 @Slf4j
 @Component("logRecordNode")
 public class LogRecordNode implements Node {
 
     @Autowired
-    private SysRequestLogService sysRequestLogService;
+    private RequestLogWriter requestLogWriter;
 
     private static final String NODE_ID = "logRecordNode";
     private static final String NODE_NAME = "日志记录节点";
@@ -37,14 +36,13 @@ public class LogRecordNode implements Node {
             requestLog.setInterfaceCode(context.getInterfaceCode());
             requestLog.setAppKey(context.getAppKey());
             requestLog.setRequestTime(new Date());
-            requestLog.setRequestParams(JSON.toJSONString(context.getRequestParams()));
             requestLog.setRequestIp(context.getAttribute("requestIp"));
             requestLog.setStatus(1); // 默认成功
             
-            // 2. 保存请求日志
-            sysRequestLogService.save(requestLog);
+            // 2. 记录请求日志，流程结束时补充处理结果后写入
+            requestLogWriter.begin(context.getAttribute("executionId"), requestLog, context.getRequestParams());
             
-            // 3. 将日志ID保存到上下文中，方便后续更新
+            // 3. 将日志ID保存到上下文中
             context.setAttributeByParamName(Node.outParamName, requestLog.getId());
             
             log.info("请求日志记录成功: {}", requestLog.getRequestId());
@@ -3,27 +3,37 @@ package com.example.provincialnode.processor.nodes;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.example.provincialnode.common.ResultCode;
+import com.example.provincialnode.common.trace.Span;
+import com.example.provincialnode.common.trace.Tracer;
 import com.example.provincialnode.config.NationalNodeConfig;
 import com.example.provincialnode.processor.Node;
 import com.example.provincialnode.processor.context.ProcessContext;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 全国节点请求处理节点
  * 负责调用全国节点服务获取数据
+ * 默认使用阻塞的连接池客户端；provincial.node.national-node-transport配置为async时使用NIO客户端，流程等待全国节点响应期间不占用线程，
+ * 响应在响应处理执行器中解析，不占用NIO客户端的IO线程
  */
 @Slf4j
 @Component("nationalNodeRequestNode")
@@ -31,6 +41,22 @@ public class NationalNodeRequestNode implements Node {
 
     @Autowired
     private NationalNodeConfig nationalNodeConfig;
+
+    // 全国节点HTTP客户端，共用连接池
+    @Autowired
+    private CloseableHttpClient nationalNodeHttpClient;
+
+    // 全国节点NIO客户端，仅在national-node-transport配置为async时存在
+    @Autowired(required = false)
+    private CloseableHttpAsyncClient nationalNodeAsyncHttpClient;
+
+    // 全国节点响应处理执行器，与NIO客户端同时存在
+    @Autowired(required = false)
+    @Qualifier("nationalNodeResponseExecutor")
+    private ExecutorService nationalNodeResponseExecutor;
+
+    @Autowired
+    private Tracer tracer;
     private static final String NODE_ID = "nationalNodeRequestNode";
     private static final String NODE_NAME = "全国节点请求节点";
 
@@ -39,58 +65,72 @@ public class NationalNodeRequestNode implements Node {
     public boolean execute(ProcessContext context) {
         log.info("执行全国节点请求节点: {}", context.getRequestId());
         try {
-            // 1. 获取请求参数和接口信息
-            String interfacePath = context.getInterfacePath();
-            Map<String, Object> requestParams = context.getAttributeByParamName(Node.inParamName);
-            
-            // 2. 构建全国节点请求URL
-            String requestUrl = nationalNodeConfig.getNationalNodeUrl() + "/" + interfacePath;
-
-            // 3. 构建请求参数
-            JSONObject requestBody = new JSONObject();
-            requestBody.putAll(requestParams);
-            //移除全国节点不需要的字段
-            requestBody.remove("txnIttChnlId");
-            requestBody.remove("txnIttChnlCgyCode");
-            //替换为省级节点publicKey和国家节点token
-            requestBody.put("publicKey",context.getAttribute("selfPublicKey").toString());
-            requestBody.put("token", nationalNodeConfig.getToken());
+            // 1-3. 构建全国节点请求URL和请求参数
+            String requestUrl = buildRequestUrl(context);
+            String requestBody = buildRequestBody(context);
 
             // 4. 发送请求到全国节点
-            String response = sendRequest(requestUrl, requestBody.toJSONString());
-            
-            // 5. 解析响应结果
-            if (response == null || response.isEmpty()) {
-                context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点返回空结果");
-                log.error("全国节点返回空结果: {}", requestUrl);
-                return false;
-            }
-            //6. 转换为市级接口需要的格式
-            Map<String,Object> nationalNodeResponse = JSON.parseObject(response, Map.class);
-            if(!((boolean) nationalNodeResponse.get("success"))){
-                context.markFailure(nationalNodeResponse.get("C-Response-Code").toString(), nationalNodeResponse.get("C-Response-Desc").toString());
-                log.error("全国节点返回异常，结果: {}", nationalNodeResponse);
-                return false;
-            }
-            Map<String,Object> cityNodeResponse = new LinkedHashMap<>(4);
-            cityNodeResponse.put("C-API-Status", (boolean) nationalNodeResponse.get("success") ? "00":"01");
-            cityNodeResponse.put("C-Response-Code",nationalNodeResponse.get("C-Response-Code"));
-            cityNodeResponse.put("C-Response-Desc",nationalNodeResponse.get("C-Response-Desc"));
-            Map<String,Object> body =null ;
-            if((boolean) nationalNodeResponse.get("success")){
-                body = new LinkedHashMap<>(7);
-                body.put("txnCommCom",null);
-                body.put("fileCom",null);
-                body.put("timestamp",nationalNodeResponse.get("timestamp"));
-                body.put("key",nationalNodeResponse.get("key"));
-                body.put("signatureData",nationalNodeResponse.get("signatureData"));
-                body.put("data",nationalNodeResponse.get("data"));
+            String response = sendRequest(requestUrl, requestBody, context.getSpan());
+
+            // 5-7. 解析响应结果
+            return handleResponse(context, requestUrl, response);
+        } catch (Exception e) {
+            log.error("全国节点请求节点执行异常: {}", e.getMessage(), e);
+            context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点请求异常");
+            return false;
+        }
+    }
+
+    /**
+     * 异步执行全国节点请求
+     * 使用异步传输时请求由NIO客户端发送，等待全国节点响应期间不占用线程，响应在响应处理执行器中解析，
+     * 执行器已满时结果以RejectedExecutionException异常完成；否则同步执行
+     */
+    @Override
+    public CompletableFuture<Boolean> executeAsync(ProcessContext context) {
+        if (nationalNodeAsyncHttpClient == null) {
+            return CompletableFuture.completedFuture(execute(context));
+        }
+        log.info("异步执行全国节点请求节点: {}", context.getRequestId());
+        String requestUrl;
+        String requestBody;
+        try {
+            requestUrl = buildRequestUrl(context);
+            requestBody = buildRequestBody(context);
+        } catch (Exception e) {
+            log.error("全国节点请求节点执行异常: {}", e.getMessage(), e);
+            context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点请求异常");
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        sendRequestAsync(requestUrl, requestBody, context.getSpan()).whenComplete((response, throwable) -> {
+            // 回调在IO线程中执行，只提交任务；执行器已满时不在IO线程中解析响应
+            try {
+                nationalNodeResponseExecutor.execute(() -> result.complete(handleAsyncResponse(context, requestUrl, response, throwable)));
+            } catch (RejectedExecutionException e) {
+                log.error("全国节点响应处理执行器已满，请求ID: {}", context.getRequestId());
+                result.completeExceptionally(e);
             }
-            cityNodeResponse.put("C-Response-Body",body);
-            // 7. 将全国节点返回结果保存到上下文中
-            context.setAttributeByParamName(Node.outParamName, cityNodeResponse);
-            log.info("全国节点请求成功: {}, 响应: {}", requestUrl, response);
-            return true;
+        });
+        return result;
+    }
+
+    /**
+     * 处理NIO客户端返回的全国节点响应，在响应处理执行器中执行
+     * @param context 上下文
+     * @param requestUrl 请求URL
+     * @param response 响应结果
+     * @param throwable 请求异常
+     * @return 是否执行成功
+     */
+    private boolean handleAsyncResponse(ProcessContext context, String requestUrl, String response, Throwable throwable) {
+        if (throwable != null) {
+            log.error("全国节点请求节点执行异常: {}", throwable.getMessage(), throwable);
+            context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点请求异常");
+            return false;
+        }
+        try {
+            return handleResponse(context, requestUrl, response);
         } catch (Exception e) {
             log.error("全国节点请求节点执行异常: {}", e.getMessage(), e);
             context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点请求异常");
@@ -99,39 +139,175 @@ public class NationalNodeRequestNode implements Node {
     }
 
     /**
-     * 发送HTTP请求到全国节点
+     * 构建全国节点请求URL
+     */
+    private String buildRequestUrl(ProcessContext context) {
+        return nationalNodeConfig.getNationalNodeUrl() + "/" + context.getInterfacePath();
+    }
+
+    /**
+     * 构建全国节点请求参数
+     */
+    private String buildRequestBody(ProcessContext context) {
+        Map<String, Object> requestParams = context.getAttributeByParamName(Node.inParamName);
+        JSONObject requestBody = new JSONObject();
+        requestBody.putAll(requestParams);
+        //移除全国节点不需要的字段
+        requestBody.remove("txnIttChnlId");
+        requestBody.remove("txnIttChnlCgyCode");
+        //替换为省级节点publicKey和国家节点token
+        requestBody.put("publicKey",context.getAttribute("selfPublicKey").toString());
+        requestBody.put("token", nationalNodeConfig.getToken());
+        return requestBody.toJSONString();
+    }
+
+    /**
+     * 解析全国节点响应，转换为市级接口需要的格式保存到上下文中
+     * @param context 处理上下文
+     * @param requestUrl 请求URL
+     * @param response 全国节点响应
+     * @return 执行结果
+     */
+    private boolean handleResponse(ProcessContext context, String requestUrl, String response) {
+        if (response == null || response.isEmpty()) {
+            context.markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点返回空结果");
+            log.error("全国节点返回空结果: {}", requestUrl);
+            return false;
+        }
+        // 转换为市级接口需要的格式
+        Map<String,Object> nationalNodeResponse = JSON.parseObject(response, Map.class);
+        if(!((boolean) nationalNodeResponse.get("success"))){
+            context.markFailure(nationalNodeResponse.get("C-Response-Code").toString(), nationalNodeResponse.get("C-Response-Desc").toString());
+            log.error("全国节点返回异常，结果: {}", nationalNodeResponse);
+            return false;
+        }
+        Map<String,Object> cityNodeResponse = new LinkedHashMap<>(4);
+        cityNodeResponse.put("C-API-Status", (boolean) nationalNodeResponse.get("success") ? "00":"01");
+        cityNodeResponse.put("C-Response-Code",nationalNodeResponse.get("C-Response-Code"));
+        cityNodeResponse.put("C-Response-Desc",nationalNodeResponse.get("C-Response-Desc"));
+        Map<String,Object> body =null ;
+        if((boolean) nationalNodeResponse.get("success")){
+            body = new LinkedHashMap<>(7);
+            body.put("txnCommCom",null);
+            body.put("fileCom",null);
+            body.put("timestamp",nationalNodeResponse.get("timestamp"));
+            body.put("key",nationalNodeResponse.get("key"));
+            body.put("signatureData",nationalNodeResponse.get("signatureData"));
+            body.put("data",nationalNodeResponse.get("data"));
+        }
+        cityNodeResponse.put("C-Response-Body",body);
+        // 将全国节点返回结果保存到上下文中
+        context.setAttributeByParamName(Node.outParamName, cityNodeResponse);
+        log.info("全国节点请求成功: {}, 响应: {}", requestUrl, response);
+        return true;
+    }
+
+    /**
+     * 构建全国节点HTTP请求，开启跟踪时通过traceparent请求头传递调用片段
      * @param url 请求URL
      * @param requestBody 请求体
-     * @return 响应结果
+     * @param span 调用片段
+     * @return HTTP请求
      */
-    private String sendRequest(String url, String requestBody) {
-        CloseableHttpClient httpClient = HttpClients.createDefault();
+    private HttpPost buildHttpPost(String url, String requestBody, Span span) {
         HttpPost httpPost = new HttpPost(url);
         httpPost.setHeader("Content-Type", "application/json; charset=UTF-8");
+        String traceParent = span.toTraceParent();
+        if (traceParent != null) {
+            httpPost.setHeader(Span.TRACE_PARENT_HEADER, traceParent);
+        }
         httpPost.setEntity(new StringEntity(requestBody, StandardCharsets.UTF_8));
-        try {
-            log.info("发送请求到全国节点,请求体: {}", requestBody);
-            CloseableHttpResponse response = httpClient.execute(httpPost);
-            int statusCode = response.getStatusLine().getStatusCode();
+        return httpPost;
+    }
+
+    private Span startClientSpan(String url, Span parent) {
+        return tracer.startSpan("POST national-node", parent)
+                .setAttribute("http.method", "POST")
+                .setAttribute("http.url", url);
+    }
 
+    /**
+     * 发送HTTP请求到全国节点
+     * @param url 请求URL
+     * @param requestBody 请求体
+     * @param parent 当前节点片段
+     * @return 响应结果
+     */
+    private String sendRequest(String url, String requestBody, Span parent) {
+        Span span = startClientSpan(url, parent);
+        HttpPost httpPost = buildHttpPost(url, requestBody, span);
+        log.info("发送请求到全国节点,请求体: {}", requestBody);
+        boolean success = false;
+        // 关闭响应即将连接归还连接池
+        try (CloseableHttpResponse response = nationalNodeHttpClient.execute(httpPost)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            span.setAttribute("http.status_code", statusCode);
             if (statusCode == 200) {
-                String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                response.close();
-                httpClient.close();
-                return responseBody;
-            } else {
-                log.warn("全国节点请求失败，状态码: {}", statusCode);
-                EntityUtils.consume(response.getEntity());
-                response.close();
+                String result = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                success = true;
+                return result;
             }
+            log.warn("全国节点请求失败，状态码: {}", statusCode);
+            // 读完响应体，连接可继续复用
+            EntityUtils.consume(response.getEntity());
         } catch (IOException e) {
             log.warn("全国节点请求异常: {}", e.getMessage());
+            span.setAttribute("error", e.getMessage());
             throw new RuntimeException("全国节点请求失败！");
+        } finally {
+            tracer.endSpan(span, success);
         }
         return null;
     }
 
 
+    /**
+     * 通过NIO客户端异步发送HTTP请求到全国节点
+     * @param url 请求URL
+     * @param requestBody 请求体
+     * @param parent 当前节点片段
+     * @return 响应结果，状态码非200时为null
+     */
+    private CompletableFuture<String> sendRequestAsync(String url, String requestBody, Span parent) {
+        Span span = startClientSpan(url, parent);
+        HttpPost httpPost = buildHttpPost(url, requestBody, span);
+        log.info("异步发送请求到全国节点,请求体: {}", requestBody);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.whenComplete((response, throwable) -> tracer.endSpan(span, throwable == null && response != null));
+        nationalNodeAsyncHttpClient.execute(httpPost, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    span.setAttribute("http.status_code", statusCode);
+                    if (statusCode == 200) {
+                        future.complete(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+                        return;
+                    }
+                    log.warn("全国节点请求失败，状态码: {}", statusCode);
+                    EntityUtils.consume(response.getEntity());
+                    future.complete(null);
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                log.warn("全国节点请求异常: {}", e.getMessage());
+                span.setAttribute("error", e.getMessage());
+                future.completeExceptionally(new RuntimeException("全国节点请求失败！", e));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+
     @Override
     public String getNodeId() {
         return NODE_ID;
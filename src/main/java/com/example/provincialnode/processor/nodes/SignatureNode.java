@@ -8,6 +8,7 @@ import com.example.provincialnode.exception.BusinessException;
 import com.example.provincialnode.processor.Node;
 import com.example.provincialnode.processor.ProcessEngine;
 import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.service.ProvincialIdentity;
 import com.example.provincialnode.service.SysAccessOrganizationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +33,8 @@ public class SignatureNode implements Node {
     @Autowired
     private SysAccessOrganizationService sysAccessOrganizationService;
     @Autowired
+    private ProvincialIdentity provincialIdentity;
+    @Autowired
     private NationalNodeConfig mationalNodeConfig;
     private static final String NODE_ID = "signatureNode";
     private static final String NODE_NAME = "签名节点";
@@ -71,8 +74,7 @@ public class SignatureNode implements Node {
                  encryptPublicKey=context.getRequestParams().get("publicKey").toString();
             }
             if(nodeConfig.get(side).equals("national")){
-                SysAccessOrganizationEntity self = sysAccessOrganizationService.selectByAppKey("self");
-                signPrivateKey=self.getPrivateKey();
+                signPrivateKey=provincialIdentity.getPrivateKey();
                 encryptPublicKey=mationalNodeConfig.getPublicKey();
             }
 
@@ -76,6 +76,12 @@ public class TokenValidateNode implements Node {
         return true;
     }
 
+    @Override
+    public boolean isBarrier() {
+        // 验证通过后设置appKey，后续节点依赖该值
+        return true;
+    }
+
     @Override
     public String getNodeId() {
         return NODE_ID;
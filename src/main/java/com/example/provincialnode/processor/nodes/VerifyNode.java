@@ -7,6 +7,7 @@ import com.example.provincialnode.config.NationalNodeConfig;
 import com.example.provincialnode.entity.SysAccessOrganizationEntity;
 import com.example.provincialnode.processor.Node;
 import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.service.ProvincialIdentity;
 import com.example.provincialnode.service.SysAccessOrganizationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,8 @@ public class VerifyNode implements Node {
     @Autowired
     private SysAccessOrganizationService sysAccessOrganizationService;
     @Autowired
+    private ProvincialIdentity provincialIdentity;
+    @Autowired
     private NationalNodeConfig mationalNodeConfig;
     private static final String NODE_ID = "verifyNode";
     private static final String NODE_NAME = "验签节点";
@@ -75,9 +78,8 @@ public class VerifyNode implements Node {
             }
             //全国端点
             if(nodeConfig.get(Node.side).equals("national")){
-                SysAccessOrganizationEntity self = sysAccessOrganizationService.selectByAppKey("self");
                 verifyPublicKey=mationalNodeConfig.getPublicKey();
-                decryptPrivateKey=self.getPrivateKey();
+                decryptPrivateKey=provincialIdentity.getPrivateKey();
                 encryptData=requestParams.get("data").toString();
                 paramKey="data";
             }
@@ -104,6 +106,12 @@ public class VerifyNode implements Node {
 
 
 
+    @Override
+    public boolean isBarrier() {
+        // 验签通过前不执行后续节点，避免伪造签名的请求被记录、签名或转发
+        return true;
+    }
+
     @Override
     public String getNodeId() {
         return NODE_ID;
@@ -0,0 +1,140 @@
+package com.example.provincialnode.processor.plan;
+
+import com.example.provincialnode.processor.Node;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 流程计划中的单个节点
+ * 持有解析好的节点实现、节点配置、输入输出参数名称和重试策略，创建后不可修改
+ */
+@Getter
+public final class PlanNode {
+
+    // 异步节点在流程结束前等待
+    public static final String JOIN_AT_END = "end";
+
+    // 异步节点不阻塞请求，执行记录在其完成后写入
+    public static final String JOIN_AT_NONE = "none";
+
+    // 所属流程编码
+    private final String processCode;
+
+    private final String nodeId;
+
+    private final String nodeName;
+
+    // 节点实现，未找到时为null
+    private final Node node;
+
+    // 节点配置（只读）
+    private final Map<String, Object> nodeConfig;
+
+    private final String inParamName;
+
+    private final Object inParamType;
+
+    private final String outParamName;
+
+    private final Object outParamType;
+
+    private final RetryConfig retryConfig;
+
+    private final boolean asyncExecution;
+
+    // 节点级属性（节点配置、编译后的配置、输入输出参数名称和类型），执行时作为节点视图的只读属性
+    private final Map<String, Object> scope;
+
+    // 显式声明依赖的节点ID
+    private final List<String> dependsOn;
+
+    // 异步节点超时时间（毫秒），0表示不限制
+    private final long timeoutMs;
+
+    // 异步节点的等待点：节点ID、end或none，编译流程计划时确定
+    private final String joinAt;
+
+    // 节点编译后的配置，执行时作为节点视图的只读属性
+    private final Object compiledConfig;
+
+    // 节点配置编译失败的原因，配置有效时为null
+    private final String configError;
+
+    // 是否原地修改输入数据，依赖推导时同时视为输入参数的写入者
+    private final boolean mutatesInput;
+
+    PlanNode(String processCode, String nodeId, String nodeName, Node node, Map<String, Object> nodeConfig,
+             String inParamName, Object inParamType, String outParamName, Object outParamType,
+             RetryConfig retryConfig, boolean asyncExecution, String joinAt, Object compiledConfig, String configError,
+             boolean mutatesInput) {
+        this.processCode = processCode;
+        this.nodeId = nodeId;
+        this.nodeName = nodeName;
+        this.node = node;
+        this.nodeConfig = nodeConfig;
+        this.inParamName = inParamName;
+        this.inParamType = inParamType;
+        this.outParamName = outParamName;
+        this.outParamType = outParamType;
+        this.retryConfig = retryConfig;
+        this.asyncExecution = asyncExecution;
+        this.joinAt = joinAt;
+        this.compiledConfig = compiledConfig;
+        this.configError = configError;
+        this.mutatesInput = mutatesInput;
+        Map<String, Object> scope = new HashMap<>(8);
+        scope.put(Node.nodeConfig, nodeConfig);
+        scope.put(Node.inParamName, inParamName);
+        scope.put(Node.inParamType, inParamType);
+        scope.put(Node.outParamName, outParamName);
+        scope.put(Node.outParamType, outParamType);
+        scope.put(Node.compiledConfig, compiledConfig);
+        this.scope = Collections.unmodifiableMap(scope);
+        this.dependsOn = parseDependsOn(nodeConfig.get(Node.dependsOn));
+        Object timeout = nodeConfig.get(Node.timeoutMs);
+        this.timeoutMs = timeout instanceof Number ? ((Number) timeout).longValue() : 0L;
+    }
+
+    /**
+     * 请求是否等待该异步节点完成
+     * @return 是否等待
+     */
+    public boolean isDetached() {
+        return JOIN_AT_NONE.equals(joinAt);
+    }
+
+    /**
+     * 是否为屏障节点，未找到节点实现时同样按屏障处理
+     * @return 是否为屏障节点
+     */
+    public boolean isBarrier() {
+        return node == null || node.isBarrier();
+    }
+
+    /**
+     * 解析显式依赖配置，支持数组或逗号分隔的字符串
+     * @param value 配置值
+     * @return 依赖的节点ID
+     */
+    private static List<String> parseDependsOn(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<String> nodeIds = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (item != null) {
+                    nodeIds.add(item.toString().trim());
+                }
+            }
+        } else {
+            for (String item : value.toString().split(",")) {
+                if (!item.trim().isEmpty()) {
+                    nodeIds.add(item.trim());
+                }
+            }
+        }
+        return Collections.unmodifiableList(nodeIds);
+    }
+}
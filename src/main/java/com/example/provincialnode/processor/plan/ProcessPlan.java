@@ -0,0 +1,141 @@
+package com.example.provincialnode.processor.plan;
+
+import com.example.provincialnode.processor.Node;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编译后的流程计划
+ * 由流程编码对应的启用节点配置编译而成，创建后不可修改，可在多个请求间共享
+ * 节点按依赖关系划分为多个阶段，同一阶段内的节点互不依赖，可以并行执行
+ * 编译时同时确定中间数据的释放点：节点输出参数在最后一个读取它的阶段完成后即可从上下文中移除，
+ * 读取者包括输入参数为该参数的节点和通过dependsOn声明依赖其生产者的节点；异步节点读写的参数和请求参数不释放
+ */
+@Getter
+public final class ProcessPlan {
+
+    private final String processCode;
+
+    // 按node_order排序的节点
+    private final List<PlanNode> nodes;
+
+    // 按依赖关系划分的执行阶段
+    private final List<List<PlanNode>> stages;
+
+    // 每个节点单独成为一个阶段，用于顺序执行
+    private final List<List<PlanNode>> sequentialStages;
+
+    // 流程结果取值的参数名称（最后一个节点的输出参数名称）
+    private final String responseParamName;
+
+    // 各阶段完成后可以释放的参数名称，与stages一一对应
+    private final List<List<String>> stageReleases;
+
+    // 顺序执行时各阶段完成后可以释放的参数名称，与sequentialStages一一对应
+    private final List<List<String>> sequentialStageReleases;
+
+    // 流程结果取值后是否可以释放结果参数（没有异步节点读写结果参数）
+    private final boolean responseReleasable;
+
+    ProcessPlan(String processCode, List<PlanNode> nodes, List<List<PlanNode>> stages, String responseParamName) {
+        this.processCode = processCode;
+        this.nodes = nodes;
+        this.stages = stages;
+        this.responseParamName = responseParamName;
+        List<List<PlanNode>> sequentialStages = new ArrayList<>(nodes.size());
+        for (PlanNode node : nodes) {
+            sequentialStages.add(Collections.singletonList(node));
+        }
+        this.sequentialStages = Collections.unmodifiableList(sequentialStages);
+        Set<String> retained = retainedParamNames(nodes);
+        this.responseReleasable = !retained.contains(responseParamName);
+        retained.add(responseParamName);
+        this.stageReleases = computeReleases(stages, retained);
+        this.sequentialStageReleases = computeReleases(this.sequentialStages, retained);
+    }
+
+    /**
+     * 获取各阶段完成后可以释放的参数名称
+     * @param parallel 是否并行执行
+     * @return 与执行阶段一一对应的参数名称
+     */
+    public List<List<String>> getReleases(boolean parallel) {
+        return parallel ? stageReleases : sequentialStageReleases;
+    }
+
+    /**
+     * 不释放的参数：请求参数和异步节点读写的参数（异步节点的执行可能跨越多个阶段）
+     * @param nodes 节点
+     * @return 参数名称
+     */
+    private static Set<String> retainedParamNames(List<PlanNode> nodes) {
+        Set<String> retained = new HashSet<>();
+        retained.add(Node.requestParams);
+        for (PlanNode node : nodes) {
+            if (node.isAsyncExecution()) {
+                retained.add(node.getInParamName());
+                retained.add(node.getOutParamName());
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * 计算各阶段完成后可以释放的参数：节点输出参数的最后一次读写所在阶段
+     * @param stages 执行阶段
+     * @param retained 不释放的参数
+     * @return 与执行阶段一一对应的参数名称
+     */
+    private static List<List<String>> computeReleases(List<List<PlanNode>> stages, Set<String> retained) {
+        Map<String, PlanNode> producers = new HashMap<>();
+        for (List<PlanNode> stage : stages) {
+            for (PlanNode node : stage) {
+                producers.put(node.getNodeId(), node);
+            }
+        }
+        // 参数名称 -> 最后一次读写所在阶段
+        Map<String, Integer> lastStages = new HashMap<>();
+        for (int i = 0; i < stages.size(); i++) {
+            for (PlanNode node : stages.get(i)) {
+                lastStages.put(node.getOutParamName(), i);
+                lastStages.put(node.getInParamName(), i);
+                for (String dependency : node.getDependsOn()) {
+                    PlanNode producer = producers.get(dependency);
+                    if (producer != null) {
+                        lastStages.put(producer.getOutParamName(), i);
+                    }
+                }
+            }
+        }
+        List<List<String>> releases = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            releases.add(new ArrayList<>(2));
+        }
+        Set<String> produced = new HashSet<>();
+        for (List<PlanNode> stage : stages) {
+            for (PlanNode node : stage) {
+                produced.add(node.getOutParamName());
+            }
+        }
+        for (String paramName : produced) {
+            if (!retained.contains(paramName)) {
+                releases.get(lastStages.get(paramName)).add(paramName);
+            }
+        }
+        for (int i = 0; i < releases.size(); i++) {
+            releases.set(i, releases.get(i).isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(releases.get(i)));
+        }
+        return Collections.unmodifiableList(releases);
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.provincialnode.processor.plan;
+
+import com.alibaba.fastjson.JSON;
+import com.example.provincialnode.common.CacheInvalidationEvent;
+import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
+import com.example.provincialnode.processor.Node;
+import com.example.provincialnode.processor.ProcessEngine;
+import com.example.provincialnode.service.SysProcessNodeConfigService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流程计划缓存
+ * 按流程编码缓存编译后的流程计划，首次使用时编译，配置变更时整体替换
+ * 编译时根据节点的输入输出参数名称、显式依赖和屏障节点推导依赖关系，将节点划分为可并行执行的阶段；
+ * 同时由节点预先编译节点配置（如校验规则），配置无效的节点在编译时记录错误，执行时直接失败
+ */
+@Slf4j
+@Component
+public class ProcessPlanCache {
+
+    @Autowired
+    private SysProcessNodeConfigService processNodeConfigService;
+
+    @Autowired
+    private Map<String, Node> nodeMap;
+
+    private final Map<String, ProcessPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 获取流程计划，未缓存时从数据库加载并编译
+     * @param processCode 流程编码
+     * @return 流程计划
+     */
+    public ProcessPlan getPlan(String processCode) {
+        return plans.computeIfAbsent(processCode, this::compile);
+    }
+
+    /**
+     * 重新编译并替换流程计划
+     * @param processCode 流程编码
+     */
+    public void refresh(String processCode) {
+        plans.put(processCode, compile(processCode));
+        log.info("刷新流程计划成功: {}", processCode);
+    }
+
+    /**
+     * 移除流程计划，下次使用时重新编译
+     * @param processCode 流程编码
+     */
+    public void evict(String processCode) {
+        plans.remove(processCode);
+    }
+
+    /**
+     * 清空所有流程计划
+     */
+    public void clear() {
+        plans.clear();
+    }
+
+    /**
+     * 流程节点配置变更时移除流程计划
+     * @param event 缓存失效事件
+     */
+    @EventListener(condition = "#event.type.name() == 'PROCESS_CONFIG'")
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isAll()) {
+            clear();
+        } else {
+            evict(event.getKey());
+        }
+    }
+
+    /**
+     * 编译流程计划
+     * @param processCode 流程编码
+     * @return 流程计划
+     */
+    private ProcessPlan compile(String processCode) {
+        List<SysProcessNodeConfigEntity> nodeConfigs = processNodeConfigService.getEnabledNodesByProcessCode(processCode);
+        return compile(processCode, nodeConfigs);
+    }
+
+    /**
+     * 将节点配置编译为流程计划
+     * @param processCode 流程编码
+     * @param nodeConfigs 按顺序排列的启用节点配置
+     * @return 流程计划
+     */
+    ProcessPlan compile(String processCode, List<SysProcessNodeConfigEntity> nodeConfigs) {
+        int size = nodeConfigs.size();
+        List<Map<String, Object>> nodeConfigMaps = new ArrayList<>(size);
+        String[] inParamNames = new String[size];
+        String[] outParamNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> nodeConfigMap = parseNodeConfig(nodeConfigs.get(i));
+            nodeConfigMaps.add(nodeConfigMap);
+            inParamNames[i] = ProcessEngine.isConfig(nodeConfigMap, Node.inParamName) ? nodeConfigMap.get(Node.inParamName).toString() : Node.requestParams;
+            outParamNames[i] = ProcessEngine.isConfig(nodeConfigMap, Node.outParamName) ? nodeConfigMap.get(Node.outParamName).toString() : Node.responseData;
+        }
+        String[] joinPoints = resolveJoinPoints(nodeConfigs, nodeConfigMaps, inParamNames, outParamNames);
+
+        List<PlanNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            SysProcessNodeConfigEntity nodeConfig = nodeConfigs.get(i);
+            Map<String, Object> nodeConfigMap = nodeConfigMaps.get(i);
+            Node node = nodeMap.get(nodeConfig.getNodeId());
+            Object compiledConfig = null;
+            String configError = null;
+            if (node == null) {
+                log.error("未找到节点实现: {}, 流程: {}", nodeConfig.getNodeId(), processCode);
+            } else {
+                try {
+                    compiledConfig = node.compileConfig(nodeConfigMap);
+                } catch (Exception e) {
+                    configError = e.getMessage();
+                    log.error("节点配置无效: {}, 流程: {}, 原因: {}", nodeConfig.getNodeId(), processCode, configError, e);
+                }
+            }
+            nodes.add(new PlanNode(
+                    processCode,
+                    nodeConfig.getNodeId(),
+                    nodeConfig.getNodeName(),
+                    node,
+                    nodeConfigMap,
+                    inParamNames[i],
+                    nodeConfigMap.get(Node.inParamType),
+                    outParamNames[i],
+                    nodeConfigMap.get(Node.outParamType),
+                    RetryConfig.parse(nodeConfig.getRetryConfig()),
+                    Boolean.TRUE.equals(nodeConfig.getAsyncExecution()),
+                    joinPoints[i],
+                    compiledConfig,
+                    configError,
+                    node != null && node.mutatesInput(nodeConfigMap)
+            ));
+        }
+        String responseParamName = nodes.isEmpty() ? Node.responseData : nodes.get(nodes.size() - 1).getOutParamName();
+        return new ProcessPlan(processCode, Collections.unmodifiableList(nodes), buildStages(nodes), responseParamName);
+    }
+
+    /**
+     * 确定异步节点的等待点，在创建流程计划节点前完成
+     * 优先使用配置的joinAt；未配置时取第一个读取其输出参数的后续节点，没有则在流程结束前等待
+     * @param nodeConfigs 按顺序排列的节点配置
+     * @param nodeConfigMaps 解析后的节点配置
+     * @param inParamNames 节点输入参数名称
+     * @param outParamNames 节点输出参数名称
+     * @return 各节点的等待点，同步节点为end
+     */
+    private String[] resolveJoinPoints(List<SysProcessNodeConfigEntity> nodeConfigs, List<Map<String, Object>> nodeConfigMaps,
+                                       String[] inParamNames, String[] outParamNames) {
+        String[] joinPoints = new String[nodeConfigs.size()];
+        for (int i = 0; i < nodeConfigs.size(); i++) {
+            String joinAt = PlanNode.JOIN_AT_END;
+            joinPoints[i] = joinAt;
+            if (!Boolean.TRUE.equals(nodeConfigs.get(i).getAsyncExecution())) {
+                continue;
+            }
+            Object configured = nodeConfigMaps.get(i).get(Node.joinAt);
+            if (configured != null && !configured.toString().trim().isEmpty()) {
+                joinAt = configured.toString().trim();
+                if (!PlanNode.JOIN_AT_END.equals(joinAt) && !PlanNode.JOIN_AT_NONE.equals(joinAt) && !containsNode(nodeConfigs, i + 1, joinAt)) {
+                    log.warn("异步节点 {} 配置的等待节点 {} 不存在或不在其之后，改为流程结束前等待", nodeConfigs.get(i).getNodeId(), joinAt);
+                    joinAt = PlanNode.JOIN_AT_END;
+                }
+            } else {
+                for (int j = i + 1; j < nodeConfigs.size(); j++) {
+                    if (outParamNames[i].equals(inParamNames[j])) {
+                        joinAt = nodeConfigs.get(j).getNodeId();
+                        break;
+                    }
+                }
+            }
+            joinPoints[i] = joinAt;
+        }
+        return joinPoints;
+    }
+
+    private static boolean containsNode(List<SysProcessNodeConfigEntity> nodeConfigs, int fromIndex, String nodeId) {
+        for (int i = fromIndex; i < nodeConfigs.size(); i++) {
+            if (nodeId.equals(nodeConfigs.get(i).getNodeId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 推导节点依赖关系并划分执行阶段
+     * 节点依赖：输入参数的最近生产者（读后写）、同名输出参数的上一个生产者（写后写）、读取该输出参数旧值的节点（写后读）、
+     * 显式声明的依赖节点、在该节点前等待的异步节点以及之前的屏障节点；屏障节点依赖之前的所有节点。
+     * 原地修改输入数据的节点同时视为输入参数的写入者：依赖之前读取该参数的节点，之后读取该参数的节点依赖它。
+     * 节点所在阶段 = 所有依赖节点的最大阶段 + 1
+     * @param nodes 按顺序排列的节点
+     * @return 执行阶段
+     */
+    private List<List<PlanNode>> buildStages(List<PlanNode> nodes) {
+        int[] levels = new int[nodes.size()];
+        Map<String, Integer> nodeIndexes = new HashMap<>();
+        // 参数名称 -> 最近的生产者
+        Map<String, Integer> lastWriters = new HashMap<>();
+        // 参数名称 -> 最近一次写入后的读取者
+        Map<String, List<Integer>> readers = new HashMap<>();
+        // 等待点节点ID -> 在该节点前等待的异步节点
+        Map<String, List<Integer>> joiners = new HashMap<>();
+        int lastBarrier = -1;
+        int maxLevel = -1;
+
+        for (int i = 0; i < nodes.size(); i++) {
+            PlanNode node = nodes.get(i);
+            int level = 0;
+            if (node.isBarrier()) {
+                level = maxLevel + 1;
+            } else {
+                if (lastBarrier >= 0) {
+                    level = levels[lastBarrier] + 1;
+                }
+                level = Math.max(level, levelAfter(levels, lastWriters.get(node.getInParamName())));
+                level = Math.max(level, levelAfter(levels, lastWriters.get(node.getOutParamName())));
+                for (Integer reader : readers.getOrDefault(node.getOutParamName(), Collections.emptyList())) {
+                    level = Math.max(level, levelAfter(levels, reader));
+                }
+                if (node.isMutatesInput()) {
+                    for (Integer reader : readers.getOrDefault(node.getInParamName(), Collections.emptyList())) {
+                        level = Math.max(level, levelAfter(levels, reader));
+                    }
+                }
+                for (String dependency : node.getDependsOn()) {
+                    Integer index = nodeIndexes.get(dependency);
+                    if (index == null) {
+                        log.warn("节点 {} 声明的依赖节点 {} 不存在或不在其之前", node.getNodeId(), dependency);
+                    }
+                    level = Math.max(level, levelAfter(levels, index));
+                }
+                for (Integer joiner : joiners.getOrDefault(node.getNodeId(), Collections.emptyList())) {
+                    level = Math.max(level, levelAfter(levels, joiner));
+                }
+            }
+            levels[i] = level;
+            maxLevel = Math.max(maxLevel, level);
+            if (node.isBarrier()) {
+                lastBarrier = i;
+            }
+            nodeIndexes.put(node.getNodeId(), i);
+            if (node.isMutatesInput()) {
+                lastWriters.put(node.getInParamName(), i);
+                readers.remove(node.getInParamName());
+            } else {
+                readers.computeIfAbsent(node.getInParamName(), k -> new ArrayList<>()).add(i);
+            }
+            lastWriters.put(node.getOutParamName(), i);
+            readers.remove(node.getOutParamName());
+            if (node.isAsyncExecution()) {
+                joiners.computeIfAbsent(node.getJoinAt(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<List<PlanNode>> stages = new ArrayList<>(maxLevel + 1);
+        for (int level = 0; level <= maxLevel; level++) {
+            stages.add(new ArrayList<>());
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            stages.get(levels[i]).add(nodes.get(i));
+        }
+        for (int level = 0; level <= maxLevel; level++) {
+            stages.set(level, Collections.unmodifiableList(stages.get(level)));
+        }
+        return Collections.unmodifiableList(stages);
+    }
+
+    private static int levelAfter(int[] levels, Integer index) {
+        return index == null ? 0 : levels[index] + 1;
+    }
+
+    /**
+     * 解析节点配置
+     * @param nodeConfig 节点配置
+     * @return 只读的节点配置Map
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parseNodeConfig(SysProcessNodeConfigEntity nodeConfig) {
+        Map<String, Object> nodeConfigMap = new HashMap<>();
+        if (nodeConfig.getNodeConfig() != null && !nodeConfig.getNodeConfig().isEmpty()) {
+            try {
+                nodeConfigMap = JSON.parseObject(nodeConfig.getNodeConfig(), Map.class);
+            } catch (Exception e) {
+                log.error("解析节点配置失败: {}", e.getMessage());
+            }
+        }
+        return Collections.unmodifiableMap(nodeConfigMap);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.provincialnode.processor.plan;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 重试配置类
+ * 由sys_process_node_config.retry_config解析得到，编译流程计划时解析一次后复用
+ */
+@Slf4j
+public final class RetryConfig {
+
+    /**
+     * 默认重试配置=》不重试
+     */
+    public static final RetryConfig NONE = new RetryConfig(0, 1000, 2.0);
+
+    private final int maxRetryCount; // 最大重试次数
+    private final int initialDelay; // 初始延迟（毫秒）
+    private final double multiplier; // 延迟倍数
+
+    public RetryConfig(int maxRetryCount, int initialDelay, double multiplier) {
+        this.maxRetryCount = maxRetryCount;
+        this.initialDelay = initialDelay;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * 解析重试配置
+     * @param retryConfigJson 重试配置JSON字符串
+     * @return 重试配置
+     */
+    @SuppressWarnings("unchecked")
+    public static RetryConfig parse(String retryConfigJson) {
+        if (retryConfigJson == null || retryConfigJson.isEmpty()) {
+            return NONE;
+        }
+
+        try {
+            Map<String, Object> configMap = JSON.parseObject(retryConfigJson, Map.class);
+            int maxRetryCount = configMap.containsKey("maxRetryCount") ?
+                    ((Number) configMap.get("maxRetryCount")).intValue() : 3;
+            int initialDelay = configMap.containsKey("initialDelay") ?
+                    ((Number) configMap.get("initialDelay")).intValue() : 1000;
+            double multiplier = configMap.containsKey("multiplier") ?
+                    ((Number) configMap.get("multiplier")).doubleValue() : 2.0;
+
+            return new RetryConfig(maxRetryCount, initialDelay, multiplier);
+        } catch (Exception e) {
+            log.error("解析重试配置失败: {}", e.getMessage());
+            // 返回默认重试配置
+            return new RetryConfig(3, 1000, 2.0);
+        }
+    }
+
+    /**
+     * 获取指定重试次数的延迟时间（指数退避）
+     * @param retryCount 重试次数
+     * @return 延迟时间（毫秒）
+     */
+    public long getDelayMs(int retryCount) {
+        return (long) (initialDelay * Math.pow(multiplier, retryCount - 1));
+    }
+
+    public int getMaxRetryCount() {
+        return maxRetryCount;
+    }
+}
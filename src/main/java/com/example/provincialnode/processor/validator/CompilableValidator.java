@@ -0,0 +1,17 @@
+package com.example.provincialnode.processor.validator;
+
+/**
+ * 支持预编译规则配置的校验器
+ * 校验规则加载时将规则配置编译为校验时直接使用的形式（如正则表达式），避免每次校验重复处理
+ */
+public interface CompilableValidator extends ParamValidator {
+
+    /**
+     * 编译校验规则配置
+     *
+     * @param ruleConfig 校验规则配置
+     * @return 编译后的规则配置，校验时作为ruleConfig传入
+     * @throws IllegalArgumentException 规则配置无效
+     */
+    Object compileConfig(Object ruleConfig);
+}
@@ -0,0 +1,338 @@
+package com.example.provincialnode.processor.validator;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的参数校验规则
+ * 校验规则JSON在节点配置加载后编译一次：参数路径预先拆分，校验器预先从工厂中取出并与规则配置绑定，
+ * 支持预编译的校验器（{@link CompilableValidator}）在此时编译规则配置，配置无效时编译失败，
+ * dataType规则上的nestedRules编译为子规则，请求处理时只需按规则树逐层校验，不再解析JSON或查找校验器
+ * 规则格式：
+ *   [{"paramName": "user.name", "rules": [{"type": "required", "config": true},
+ *                                        {"type": "dataType", "config": "array", "nestedRules": [...]}]}]
+ *   paramPath与paramName等价；array/iterable的nestedRules作用于每个元素，
+ *   元素规则可以是校验规则（含type），也可以是字段规则（含rules，未配置paramName时校验元素本身）
+ * 校验可以在第一个错误时结束，也可以一次遍历收集全部错误：同一字段只记录第一个失败的校验规则，
+ * 字段自身校验失败时不再校验其嵌套规则
+ */
+@Slf4j
+public final class ValidationRuleTree {
+
+    private static final ValidationRuleTree EMPTY = new ValidationRuleTree(Collections.emptyList());
+
+    private final List<FieldRule> fieldRules;
+
+    private ValidationRuleTree(List<FieldRule> fieldRules) {
+        this.fieldRules = fieldRules;
+    }
+
+    /**
+     * 编译校验规则
+     * @param validateRulesJson 校验规则JSON
+     * @param validatorFactory 校验器工厂
+     * @return 编译后的校验规则
+     */
+    public static ValidationRuleTree compile(String validateRulesJson, ParamValidatorFactory validatorFactory) {
+        JSONArray validateRules = JSON.parseArray(validateRulesJson);
+        if (validateRules == null || validateRules.isEmpty()) {
+            return EMPTY;
+        }
+        List<FieldRule> fieldRules = compileFieldRules(validateRules, validatorFactory, false);
+        return fieldRules.isEmpty() ? EMPTY : new ValidationRuleTree(fieldRules);
+    }
+
+    public boolean isEmpty() {
+        return fieldRules.isEmpty();
+    }
+
+    /**
+     * 校验参数，遇到第一个错误时返回
+     * @param params 请求参数
+     * @return 错误信息，校验通过时返回null
+     */
+    public String validate(Object params) {
+        ErrorSink sink = new ErrorSink(1);
+        validate(params, sink);
+        return sink.errors == null ? null : sink.errors.get(0);
+    }
+
+    /**
+     * 校验参数，一次遍历收集全部错误
+     * @param params 请求参数
+     * @param maxErrors 最多收集的错误数，达到后结束校验
+     * @return 错误信息列表，校验通过时返回空列表
+     */
+    public List<String> validateAll(Object params, int maxErrors) {
+        ErrorSink sink = new ErrorSink(Math.max(maxErrors, 1));
+        validate(params, sink);
+        return sink.errors == null ? Collections.emptyList() : sink.errors;
+    }
+
+    private void validate(Object params, ErrorSink sink) {
+        for (FieldRule fieldRule : fieldRules) {
+            if (!fieldRule.validate(params, fieldRule.paramName, sink)) {
+                return;
+            }
+        }
+    }
+
+    private static List<FieldRule> compileFieldRules(JSONArray rules, ParamValidatorFactory validatorFactory, boolean element) {
+        List<FieldRule> fieldRules = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            JSONObject rule = rules.getJSONObject(i);
+            if (rule == null) {
+                continue;
+            }
+            String paramName = rule.getString("paramName");
+            if (paramName == null) {
+                paramName = rule.getString("paramPath");
+            }
+            JSONArray checks = rule.getJSONArray("rules");
+            if (element && paramName == null && rule.containsKey("type")) {
+                // 元素的校验规则，直接作用于元素
+                checks = new JSONArray(Collections.singletonList(rule));
+            } else if ((paramName == null && !element) || checks == null || checks.isEmpty()) {
+                continue;
+            }
+            fieldRules.add(compileFieldRule(paramName, checks, validatorFactory));
+        }
+        return Collections.unmodifiableList(fieldRules);
+    }
+
+    private static FieldRule compileFieldRule(String paramName, JSONArray checks, ParamValidatorFactory validatorFactory) {
+        List<BoundValidator> validators = new ArrayList<>(checks.size());
+        List<NestedRule> nestedRules = new ArrayList<>(1);
+        for (int i = 0; i < checks.size(); i++) {
+            JSONObject check = checks.getJSONObject(i);
+            String validatorType = check.getString("type");
+            Object ruleConfig = check.get("config");
+            ParamValidator validator = validatorFactory.getValidator(validatorType);
+            if (validator == null) {
+                log.warn("未找到校验器: {}", validatorType);
+            } else if (validator instanceof CompilableValidator) {
+                // 预先编译规则配置，配置无效时规则加载失败
+                try {
+                    validators.add(new BoundValidator(validator, ((CompilableValidator) validator).compileConfig(ruleConfig)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("参数 " + paramName + " 的" + validatorType + "校验规则无效: " + e.getMessage(), e);
+                }
+            } else {
+                validators.add(new BoundValidator(validator, ruleConfig));
+            }
+            // dataType规则的嵌套校验
+            JSONArray nested = check.getJSONArray("nestedRules");
+            if ("dataType".equals(validatorType) && ruleConfig != null && nested != null && !nested.isEmpty()) {
+                NestedType nestedType = NestedType.of(ruleConfig.toString().toLowerCase());
+                if (nestedType != null) {
+                    List<FieldRule> children = compileFieldRules(nested, validatorFactory, nestedType == NestedType.ELEMENTS);
+                    if (!children.isEmpty()) {
+                        nestedRules.add(new NestedRule(nestedType, children));
+                    }
+                }
+            }
+        }
+        String[] path = paramName == null || paramName.isEmpty() ? null : paramName.split("\\.");
+        return new FieldRule(paramName, path,
+                validators.toArray(new BoundValidator[0]), nestedRules.toArray(new NestedRule[0]));
+    }
+
+    /**
+     * 嵌套校验类型
+     */
+    private enum NestedType {
+        // 数组或集合，逐个元素校验
+        ELEMENTS,
+        // Map或对象，按路径校验字段
+        FIELDS,
+        // JSON字符串，解析后按路径校验字段
+        JSON_FIELDS;
+
+        static NestedType of(String dataType) {
+            switch (dataType) {
+                case "array":
+                case "iterable":
+                    return ELEMENTS;
+                case "map":
+                case "object":
+                    return FIELDS;
+                case "json":
+                    return JSON_FIELDS;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * 错误收集器，达到数量上限后停止校验
+     */
+    private static final class ErrorSink {
+        private final int maxErrors;
+        // 第一个错误出现时才创建
+        private List<String> errors;
+
+        private ErrorSink(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        /**
+         * 记录错误
+         * @param error 错误信息
+         * @return 是否继续校验
+         */
+        private boolean add(String error) {
+            if (errors == null) {
+                errors = new ArrayList<>(Math.min(maxErrors, 8));
+            }
+            errors.add(error);
+            return errors.size() < maxErrors;
+        }
+    }
+
+    /**
+     * 与规则配置绑定的校验器
+     */
+    private static final class BoundValidator {
+        private final ParamValidator validator;
+        private final Object ruleConfig;
+
+        private BoundValidator(ParamValidator validator, Object ruleConfig) {
+            this.validator = validator;
+            this.ruleConfig = ruleConfig;
+        }
+    }
+
+    /**
+     * 嵌套校验规则
+     */
+    private static final class NestedRule {
+        private final NestedType type;
+        private final List<FieldRule> children;
+
+        private NestedRule(NestedType type, List<FieldRule> children) {
+            this.type = type;
+            this.children = children;
+        }
+    }
+
+    /**
+     * 字段校验规则
+     */
+    private static final class FieldRule {
+        // 参数名称，元素规则未配置时为null
+        private final String paramName;
+        // 预先拆分的参数路径，为null时校验当前值本身
+        private final String[] path;
+        private final BoundValidator[] validators;
+        private final NestedRule[] nestedRules;
+
+        private FieldRule(String paramName, String[] path, BoundValidator[] validators, NestedRule[] nestedRules) {
+            this.paramName = paramName;
+            this.path = path;
+            this.validators = validators;
+            this.nestedRules = nestedRules;
+        }
+
+        /**
+         * 从源对象中取值并校验
+         * @param source 源对象
+         * @param displayName 错误信息中的参数名称
+         * @param sink 错误收集器
+         * @return 是否继续校验
+         */
+        private boolean validate(Object source, String displayName, ErrorSink sink) {
+            Object value = path == null ? source : resolve(source);
+            // 先进行当前字段的校验，同一字段只记录第一个错误
+            for (BoundValidator bound : validators) {
+                if (!bound.validator.validate(value, bound.ruleConfig)) {
+                    return sink.add(bound.validator.getErrorMessage(displayName, value, bound.ruleConfig));
+                }
+            }
+            if (value == null) {
+                return true;
+            }
+            // 再进行嵌套校验
+            for (NestedRule nestedRule : nestedRules) {
+                if (!validateNested(nestedRule, value, displayName, sink)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean validateNested(NestedRule nestedRule, Object value, String displayName, ErrorSink sink) {
+            switch (nestedRule.type) {
+                case ELEMENTS:
+                    if (value instanceof Iterable) {
+                        int index = 0;
+                        for (Object item : (Iterable<?>) value) {
+                            if (!validateChildren(nestedRule.children, item, displayName + "[" + index++ + "]", sink)) {
+                                return false;
+                            }
+                        }
+                    } else if (value.getClass().isArray()) {
+                        int length = Array.getLength(value);
+                        for (int i = 0; i < length; i++) {
+                            if (!validateChildren(nestedRule.children, Array.get(value, i), displayName + "[" + i + "]", sink)) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                case FIELDS:
+                    return !(value instanceof Map) || validateChildren(nestedRule.children, value, displayName, sink);
+                case JSON_FIELDS:
+                    if (!(value instanceof String)) {
+                        return true;
+                    }
+                    Object json;
+                    try {
+                        json = JSON.parse((String) value);
+                    } catch (Exception e) {
+                        log.error("JSON解析失败: {}", e.getMessage());
+                        return sink.add("参数 " + displayName + " JSON格式错误");
+                    }
+                    return validateChildren(nestedRule.children, json, displayName, sink);
+                default:
+                    return true;
+            }
+        }
+
+        private static boolean validateChildren(List<FieldRule> children, Object value, String displayName, ErrorSink sink) {
+            for (FieldRule child : children) {
+                if (!child.validate(value, child.paramName == null ? displayName : displayName + "." + child.paramName, sink)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 按路径取值，无法继续深入时返回当前值
+         * @param source 源对象
+         * @return 参数值
+         */
+        private Object resolve(Object source) {
+            Object current = source;
+            for (String part : path) {
+                if (current == null) {
+                    return null;
+                }
+                if (!(current instanceof Map)) {
+                    return current;
+                }
+                current = ((Map<?, ?>) current).get(part);
+            }
+            return current;
+        }
+    }
+}
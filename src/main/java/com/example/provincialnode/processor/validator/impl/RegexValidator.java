@@ -1,41 +1,218 @@
 package com.example.provincialnode.processor.validator.impl;
 
-import com.example.provincialnode.processor.validator.ParamValidator;
+import com.example.provincialnode.processor.validator.CompilableValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
 /**
  * 正则表达式校验器
  * 使用正则表达式验证字符串参数的格式
+ * 规则配置可以是正则表达式字符串，也可以是{"pattern": "...", "timeoutMs": 50}，配置了timeoutMs时匹配超时视为校验失败；
+ * 未配置timeoutMs但存在嵌套量词（如(a+)+，可能出现灾难性回溯）的正则表达式使用默认超时时间
+ * 编译后的正则表达式缓存在有界缓存中，规则加载时预先编译，无效的正则表达式在加载时报错
  */
+@Slf4j
 @Component
-public class RegexValidator implements ParamValidator {
-    
+public class RegexValidator implements CompilableValidator {
+
     private static final String TYPE = "regex";
-    
+
+    // 嵌套量词：括号内含有量词，括号后又跟量词
+    private static final Pattern NESTED_QUANTIFIER = Pattern.compile("\\((?:[^()\\\\]|\\\\.)*[+*}](?:[^()\\\\]|\\\\.)*\\)[+*{]");
+
+    @Value("${provincial.node.validator.regex.cache-size:512}")
+    private long cacheSize;
+
+    // 存在回溯风险的正则表达式默认超时时间，0表示不限制
+    @Value("${provincial.node.validator.regex.risky-timeout-ms:100}")
+    private long riskyTimeoutMs;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CompiledRegex> patternCache;
+
+    // 匹配超时次数
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private Counter timeoutCounter;
+
+    @PostConstruct
+    public void init() {
+        patternCache = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, patternCache, "regexPattern");
+            timeoutCounter = Counter.builder("validator.regex.timeout")
+                    .description("正则表达式匹配超时次数").register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Object compileConfig(Object ruleConfig) {
+        if (ruleConfig == null) {
+            return null;
+        }
+        try {
+            return compile(ruleConfig);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("正则表达式格式错误: " + e.getDescription() + ", " + e.getPattern());
+        }
+    }
+
     @Override
     public boolean validate(Object paramValue, Object ruleConfig) {
         if (paramValue == null || ruleConfig == null || !(paramValue instanceof String)) {
             return true;
         }
-        
+
         String strValue = (String) paramValue;
-        String regex = ruleConfig.toString();
-        
+        CompiledRegex regex;
         try {
-            return strValue.matches(regex);
+            regex = ruleConfig instanceof CompiledRegex ? (CompiledRegex) ruleConfig : compile(ruleConfig);
         } catch (Exception e) {
             // 正则表达式格式错误，视为校验失败
             return false;
         }
+        if (regex.timeoutMs <= 0) {
+            return regex.pattern.matcher(strValue).matches();
+        }
+        try {
+            return regex.pattern.matcher(new DeadlineCharSequence(strValue, System.nanoTime() + regex.timeoutMs * 1_000_000L)).matches();
+        } catch (MatchTimeoutException e) {
+            timeoutCount.incrementAndGet();
+            if (timeoutCounter != null) {
+                timeoutCounter.increment();
+            }
+            log.warn("正则表达式匹配超时: {}, 超时时间: {}ms", regex.pattern.pattern(), regex.timeoutMs);
+            return false;
+        }
     }
-    
+
     @Override
     public String getErrorMessage(String paramName, Object paramValue, Object ruleConfig) {
         return "参数 " + paramName + " 格式不正确";
     }
-    
+
     @Override
     public String getType() {
         return TYPE;
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取匹配超时次数
+     * @return 超时次数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * 编译规则配置，相同配置共用缓存中的正则表达式
+     * @param ruleConfig 正则表达式字符串或{"pattern", "timeoutMs"}
+     * @return 编译后的正则表达式
+     */
+    private CompiledRegex compile(Object ruleConfig) {
+        String regex;
+        long timeoutMs = -1;
+        if (ruleConfig instanceof Map) {
+            Map<?, ?> config = (Map<?, ?>) ruleConfig;
+            Object pattern = config.get("pattern");
+            if (pattern == null) {
+                throw new IllegalArgumentException("正则表达式规则未配置pattern");
+            }
+            regex = pattern.toString();
+            Object timeout = config.get("timeoutMs");
+            if (timeout != null) {
+                timeoutMs = Long.parseLong(timeout.toString());
+            }
+        } else {
+            regex = ruleConfig.toString();
+        }
+        CompiledRegex compiled = patternCache.get(regex, key -> {
+            Pattern pattern = Pattern.compile(key);
+            boolean risky = NESTED_QUANTIFIER.matcher(key).find();
+            if (risky) {
+                log.warn("正则表达式存在回溯风险，匹配时限制超时时间: {}", key);
+            }
+            return new CompiledRegex(pattern, risky ? riskyTimeoutMs : 0L);
+        });
+        return timeoutMs < 0 || timeoutMs == compiled.timeoutMs ? compiled : new CompiledRegex(compiled.pattern, timeoutMs);
+    }
+
+    /**
+     * 编译后的正则表达式
+     */
+    static final class CompiledRegex {
+        private final Pattern pattern;
+        // 匹配超时时间，0表示不限制
+        private final long timeoutMs;
+
+        private CompiledRegex(Pattern pattern, long timeoutMs) {
+            this.pattern = pattern;
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public String toString() {
+            return pattern.pattern();
+        }
+    }
+
+    /**
+     * 匹配超时异常
+     */
+    private static final class MatchTimeoutException extends RuntimeException {
+        private MatchTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 读取字符时检查截止时间的字符序列，正则匹配回溯时会反复读取字符，超过截止时间后中断匹配
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+        private final CharSequence value;
+        private final long deadlineNanos;
+
+        private DeadlineCharSequence(CharSequence value, long deadlineNanos) {
+            this.value = value;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public int length() {
+            return value.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (System.nanoTime() > deadlineNanos) {
+                throw new MatchTimeoutException();
+            }
+            return value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new DeadlineCharSequence(value.subSequence(start, end), deadlineNanos);
+        }
+
+        @Override
+        public String toString() {
+            return value.toString();
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.provincialnode.service;
+
+import com.alibaba.fastjson.JSON;
+import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流程执行记录日志
+ * 在内存中收集流程执行过程中的状态变化，流程结束后合并为一行执行记录，由后台线程批量写入数据库
+ * 写入模式：
+ *   sync-on-failure（默认）：失败的执行记录同步写入，保证恢复任务能及时读取；成功的记录异步批量写入
+ *   async：所有执行记录都异步批量写入，吞吐更高，但进程异常退出时队列中尚未写入的记录会丢失
+ * 服务停止时写入队列中的剩余记录，尚未结束的执行标记为失败后写入，由恢复任务重新处理
+ * 同步写入在请求完成路径中执行，写入失败时不抛出异常，记录转由后台线程再次写入
+ */
+@Slf4j
+@Component
+public class ProcessExecutionJournal {
+
+    /**
+     * 写入模式
+     */
+    public enum Mode {
+        SYNC_ON_FAILURE,
+        ASYNC;
+
+        static Mode of(String value) {
+            return "async".equalsIgnoreCase(value) ? ASYNC : SYNC_ON_FAILURE;
+        }
+    }
+
+    @Autowired
+    private SysProcessExecutionRecordService processExecutionRecordService;
+
+    @Value("${provincial.node.execution-journal.mode:sync-on-failure}")
+    private String mode;
+
+    @Value("${provincial.node.execution-journal.batch-size:200}")
+    private int batchSize;
+
+    @Value("${provincial.node.execution-journal.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${provincial.node.execution-journal.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 执行中的记录
+    private final Map<String, SysProcessExecutionRecordEntity> activeRecords = new ConcurrentHashMap<>();
+
+    // 已结束、等待写入的记录
+    private final Map<String, SysProcessExecutionRecordEntity> pendingRecords = new ConcurrentHashMap<>();
+
+    private BlockingQueue<SysProcessExecutionRecordEntity> flushQueue;
+
+    // 同步写入失败、等待后台线程再次写入的记录
+    private final Queue<SysProcessExecutionRecordEntity> retryQueue = new ConcurrentLinkedQueue<>();
+
+    private Mode journalMode;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        journalMode = Mode.of(mode);
+        flushQueue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::writeLoop, "execution-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("流程执行记录日志启动, 模式: {}, 批量大小: {}", journalMode, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写入剩余记录，尚未结束的执行标记为失败
+        List<SysProcessExecutionRecordEntity> batch = new ArrayList<>();
+        flushQueue.drainTo(batch);
+        drainRetries(batch, Integer.MAX_VALUE);
+        Date now = new Date();
+        for (String executionId : new ArrayList<>(activeRecords.keySet())) {
+            SysProcessExecutionRecordEntity record = activeRecords.remove(executionId);
+            if (record != null) {
+                record.setStatus(3); // 失败
+                record.setErrorMessage("服务停止时流程未结束");
+                record.setEndTime(now);
+                record.setUpdateTime(now);
+                batch.add(record);
+            }
+        }
+        if (!batch.isEmpty()) {
+            log.info("服务停止，写入剩余执行记录 {} 条", batch.size());
+            flush(batch);
+        }
+    }
+
+    /**
+     * 开始记录流程执行
+     * @param processCode 流程代码
+     * @param interfaceCode 接口代码
+     * @param appKey AppKey
+     * @param requestId 请求ID
+     * @return 执行记录（仅在内存中）
+     */
+    public SysProcessExecutionRecordEntity begin(String processCode, String interfaceCode, String appKey, String requestId) {
+        SysProcessExecutionRecordEntity record = new SysProcessExecutionRecordEntity();
+        record.setExecutionId(UUID.randomUUID().toString());
+        record.setRequestId(requestId);
+        record.setProcessCode(processCode);
+        record.setInterfaceCode(interfaceCode);
+        record.setAppKey(appKey);
+        record.setStatus(1); // 执行中
+        record.setRetryCount(0);
+        record.setMaxRetryCount(3);
+        record.setStartTime(new Date());
+        activeRecords.put(record.getExecutionId(), record);
+        return record;
+    }
+
+    /**
+     * 记录当前执行节点
+     * @param executionId 执行ID
+     * @param currentNodeId 当前节点ID
+     */
+    public void nodeStarted(String executionId, String currentNodeId) {
+        SysProcessExecutionRecordEntity record = activeRecords.get(executionId);
+        if (record != null) {
+            record.setCurrentNodeId(currentNodeId);
+        }
+    }
+
+    /**
+     * 结束流程执行，合并状态、错误信息和执行上下文后写入
+     * @param executionId 执行ID
+     * @param status 状态
+     * @param errorMessage 错误信息
+     * @param context 处理上下文
+     */
+    public void complete(String executionId, Integer status, String errorMessage, ProcessContext context) {
+        SysProcessExecutionRecordEntity record = activeRecords.remove(executionId);
+        if (record == null) {
+            log.warn("执行记录不存在或已结束: {}", executionId);
+            return;
+        }
+        Date now = new Date();
+        record.setStatus(status);
+        record.setErrorMessage(errorMessage);
+        record.setEndTime(now);
+        record.setUpdateTime(now);
+        // 序列化上下文为JSON字符串，用于重放
+        record.setExecutionContext(JSON.toJSONString(context));
+
+        if (journalMode == Mode.SYNC_ON_FAILURE && Integer.valueOf(3).equals(status)) {
+            saveSync(record);
+            return;
+        }
+        pendingRecords.put(executionId, record);
+        if (!flushQueue.offer(record)) {
+            // 队列已满，直接写入避免丢失
+            log.warn("执行记录写入队列已满，同步写入: {}", executionId);
+            pendingRecords.remove(executionId);
+            saveSync(record);
+        }
+    }
+
+    /**
+     * 同步写入执行记录，写入失败时交由后台线程再次写入，不向流程引擎抛出异常
+     * @param record 执行记录
+     */
+    private void saveSync(SysProcessExecutionRecordEntity record) {
+        try {
+            processExecutionRecordService.save(record);
+        } catch (Exception e) {
+            log.error("同步写入执行记录失败，转为后台写入: {}, {}", record.getExecutionId(), e.getMessage());
+            pendingRecords.put(record.getExecutionId(), record);
+            retryQueue.offer(record);
+        }
+    }
+
+    /**
+     * 取出同步写入失败的记录
+     * @param batch 写入批次
+     * @param maxRecords 最多取出的条数
+     */
+    private void drainRetries(List<SysProcessExecutionRecordEntity> batch, int maxRecords) {
+        SysProcessExecutionRecordEntity record;
+        for (int i = 0; i < maxRecords && (record = retryQueue.poll()) != null; i++) {
+            batch.add(record);
+        }
+    }
+
+    /**
+     * 查询执行记录，优先返回尚未写入数据库的记录
+     * @param executionId 执行ID
+     * @return 执行记录
+     */
+    public SysProcessExecutionRecordEntity getByExecutionId(String executionId) {
+        SysProcessExecutionRecordEntity record = pendingRecords.get(executionId);
+        if (record == null) {
+            record = activeRecords.get(executionId);
+        }
+        return record != null ? record : processExecutionRecordService.getByExecutionId(executionId);
+    }
+
+    /**
+     * 获取等待写入的记录数量
+     * @return 记录数量
+     */
+    public int getPendingCount() {
+        return flushQueue.size();
+    }
+
+    /**
+     * 后台写入循环
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                SysProcessExecutionRecordEntity first = flushQueue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                List<SysProcessExecutionRecordEntity> batch = new ArrayList<>(batchSize);
+                if (first != null) {
+                    batch.add(first);
+                    flushQueue.drainTo(batch, batchSize - 1);
+                }
+                drainRetries(batch, batchSize - batch.size());
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("执行记录写入线程异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 批量写入执行记录，批量失败时逐条写入
+     * @param batch 执行记录
+     */
+    private void flush(List<SysProcessExecutionRecordEntity> batch) {
+        try {
+            processExecutionRecordService.saveBatch(batch, batchSize);
+        } catch (Exception e) {
+            log.error("批量写入执行记录失败，改为逐条写入: {}", e.getMessage());
+            for (SysProcessExecutionRecordEntity record : batch) {
+                try {
+                    processExecutionRecordService.save(record);
+                } catch (Exception ex) {
+                    log.error("写入执行记录失败: {}, {}", record.getExecutionId(), ex.getMessage());
+                }
+            }
+        } finally {
+            for (SysProcessExecutionRecordEntity record : batch) {
+                pendingRecords.remove(record.getExecutionId());
+            }
+        }
+    }
+}
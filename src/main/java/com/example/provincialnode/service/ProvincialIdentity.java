@@ -0,0 +1,174 @@
+package com.example.provincialnode.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.example.provincialnode.common.CacheInvalidationEvent;
+import com.example.provincialnode.common.SignUtil;
+import com.example.provincialnode.entity.SysAccessOrganizationEntity;
+import com.example.provincialnode.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 省级节点自身身份
+ * 持有省级节点自身（AppKey为self）的密钥对，启动时从数据库加载并预先解析，
+ * 密钥轮换时收到接入机构缓存失效事件后重新加载，整体原子替换，请求处理过程中不再查询数据库
+ * 加载失败（未配置自身密钥或数据库不可用）时记录失败，重试间隔内的请求直接失败，不再逐个请求排队查询数据库
+ */
+@Slf4j
+@Component
+public class ProvincialIdentity {
+
+    public static final String SELF_APP_KEY = "self";
+
+    @Autowired
+    private SysAccessOrganizationService sysAccessOrganizationService;
+
+    // 加载失败后再次从数据库加载的最短间隔(毫秒)
+    @Value("${provincial.node.identity.retry-interval-ms:30000}")
+    private long retryIntervalMs;
+
+    private final AtomicReference<KeyPair> keyPair = new AtomicReference<>();
+
+    // 最近一次加载失败，加载成功后清除
+    private volatile LoadFailure lastFailure;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    /**
+     * 启动时加载密钥，失败时记录错误，不阻止应用启动
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("省级节点自身密钥加载失败，请检查接入机构表中AppKey为{}的记录，{}ms后请求时重试: {}",
+                    SELF_APP_KEY, retryIntervalMs, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取省级节点公钥
+     * @return 公钥
+     */
+    public String getPublicKey() {
+        return current().getPublicKey();
+    }
+
+    /**
+     * 获取省级节点私钥
+     * @return 私钥
+     */
+    public String getPrivateKey() {
+        return current().getPrivateKey();
+    }
+
+    /**
+     * 从数据库重新加载密钥对，新密钥解析成功后才替换，失败时保留原密钥
+     */
+    public void reload() {
+        loadLock.lock();
+        try {
+            loadAndSet();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 接入机构变更时，如果涉及自身则重新加载密钥
+     * @param event 缓存失效事件
+     */
+    @EventListener(condition = "#event.type.name() == 'ACCESS_ORG'")
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!event.isAll() && !SELF_APP_KEY.equals(event.getKey())) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("重新加载省级节点自身密钥失败，继续使用原密钥: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取当前密钥对
+     * 尚未加载成功时，距上次失败超过重试间隔才由一个请求重新加载，其余请求直接失败
+     */
+    private KeyPair current() {
+        KeyPair current = keyPair.get();
+        if (current != null) {
+            return current;
+        }
+        LoadFailure failure = lastFailure;
+        if (failure != null && System.currentTimeMillis() - failure.getFailedAt() < retryIntervalMs) {
+            throw new BusinessException(failure.getMessage());
+        }
+        if (!loadLock.tryLock()) {
+            // 其他请求正在加载
+            throw new BusinessException(failure != null ? failure.getMessage() : "省级节点自身密钥加载中");
+        }
+        try {
+            current = keyPair.get();
+            return current != null ? current : loadAndSet();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 加载并替换密钥对，持有loadLock时调用
+     * @return 新密钥对
+     */
+    private KeyPair loadAndSet() {
+        try {
+            KeyPair loaded = load();
+            keyPair.set(loaded);
+            lastFailure = null;
+            log.info("省级节点自身密钥加载完成");
+            return loaded;
+        } catch (RuntimeException e) {
+            String message = e instanceof BusinessException ? e.getMessage() : "省级节点自身密钥加载失败: " + e.getMessage();
+            lastFailure = new LoadFailure(message, System.currentTimeMillis());
+            throw e;
+        }
+    }
+
+    private KeyPair load() {
+        SysAccessOrganizationEntity self = sysAccessOrganizationService.selectByAppKeyFromDb(SELF_APP_KEY);
+        if (self == null || StrUtil.isBlank(self.getPublicKey()) || StrUtil.isBlank(self.getPrivateKey())) {
+            throw new BusinessException("未配置省级节点自身密钥");
+        }
+        SignUtil.preloadKeys(self.getPrivateKey(), self.getPublicKey());
+        return new KeyPair(self.getPublicKey(), self.getPrivateKey());
+    }
+
+    /**
+     * 加载失败记录
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class LoadFailure {
+        private final String message;
+        private final long failedAt;
+    }
+
+    /**
+     * 不可变的密钥对
+     */
+    @Getter
+    @AllArgsConstructor
+    private static final class KeyPair {
+        private final String publicKey;
+        private final String privateKey;
+    }
+}
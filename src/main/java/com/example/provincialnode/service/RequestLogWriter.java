@@ -0,0 +1,371 @@
+package com.example.provincialnode.service;
+
+import com.alibaba.fastjson.JSON;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.provincialnode.entity.SysRequestLogEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求日志写入器
+ * 请求日志放入有界队列，由后台线程批量写入sys_request_log（配合JDBC rewriteBatchedStatements合并为多值插入），
+ * 请求耗时不再受日志表写入速度影响。响应结果在写入线程中序列化；请求参数在提交时序列化为快照，
+ * 流程后续对参数（包括嵌套对象）的修改不影响日志内容
+ * 流程中记录的日志先保存在内存中，流程结束时补充响应时间、处理耗时和处理结果后一次性插入，不再先插入后更新；
+ * 超过open-timeout-ms未结束或超过max-open条数的日志标记为失败后写入，服务停止时未结束的日志同样写入
+ * 队列满时的处理策略：
+ *   drop（默认）：丢弃当前日志并计数
+ *   sync：在请求线程中同步写入
+ *   block：等待队列空位，超过等待时间后丢弃
+ */
+@Slf4j
+@Component
+public class RequestLogWriter {
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        DROP,
+        SYNC,
+        BLOCK;
+
+        static OverflowPolicy of(String value) {
+            if ("sync".equalsIgnoreCase(value)) {
+                return SYNC;
+            }
+            return "block".equalsIgnoreCase(value) ? BLOCK : DROP;
+        }
+    }
+
+    @Autowired
+    private SysRequestLogService sysRequestLogService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${provincial.node.request-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${provincial.node.request-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${provincial.node.request-log.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Value("${provincial.node.request-log.overflow-policy:drop}")
+    private String overflowPolicy;
+
+    @Value("${provincial.node.request-log.block-timeout-ms:50}")
+    private long blockTimeoutMs;
+
+    @Value("${provincial.node.request-log.open-timeout-ms:300000}")
+    private long openTimeoutMs;
+
+    @Value("${provincial.node.request-log.max-open:10000}")
+    private long maxOpen;
+
+    // 流程执行中的日志，按执行ID保存，流程结束后写入；超时或超出容量时按未完成写入
+    private Cache<String, PendingLog> openLogs;
+
+    private BlockingQueue<PendingLog> queue;
+
+    private OverflowPolicy policy;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    // 丢弃的日志数
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // 队列满时触发溢出策略的次数
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    // 写入失败的日志数
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private Counter writtenCounter;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        policy = OverflowPolicy.of(overflowPolicy);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        openLogs = Caffeine.newBuilder()
+                .maximumSize(maxOpen)
+                .expireAfterWrite(openTimeoutMs, TimeUnit.MILLISECONDS)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener(this::onOpenLogRemoved)
+                .build();
+        if (meterRegistry != null) {
+            Gauge.builder("request.log.queue.size", queue, BlockingQueue::size)
+                    .description("等待写入的请求日志数").register(meterRegistry);
+            Gauge.builder("request.log.queue.capacity", () -> queueCapacity)
+                    .description("请求日志队列容量").register(meterRegistry);
+            FunctionCounter.builder("request.log.dropped", droppedCount, AtomicLong::get)
+                    .description("丢弃的请求日志数").register(meterRegistry);
+            FunctionCounter.builder("request.log.overflow", overflowCount, AtomicLong::get)
+                    .description("队列满触发溢出策略的次数").register(meterRegistry);
+            FunctionCounter.builder("request.log.failed", failedCount, AtomicLong::get)
+                    .description("写入失败的请求日志数").register(meterRegistry);
+            writtenCounter = Counter.builder("request.log.written")
+                    .description("已写入的请求日志数").register(meterRegistry);
+            flushTimer = Timer.builder("request.log.flush")
+                    .description("批量写入请求日志耗时").register(meterRegistry);
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "request-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("请求日志写入器启动, 批量大小: {}, 队列容量: {}, 队列满策略: {}", batchSize, queueCapacity, policy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写入剩余日志，包括流程尚未结束的日志
+        List<PendingLog> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        for (String executionId : new ArrayList<>(openLogs.asMap().keySet())) {
+            PendingLog pending = openLogs.asMap().remove(executionId);
+            if (pending != null) {
+                pending.markUnfinished("服务停止时流程未结束");
+                batch.add(pending);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 提交请求日志，未设置ID时预先生成，调用方可立即使用日志ID
+     * @param requestLog 请求日志
+     * @param requestParams 请求参数，提交时序列化
+     * @return 是否已接收（写入队列或同步写入），被丢弃时返回false
+     */
+    public boolean submit(SysRequestLogEntity requestLog, Map<String, Object> requestParams) {
+        return enqueue(newPendingLog(requestLog, requestParams));
+    }
+
+    /**
+     * 开始记录流程中的请求日志，流程结束时由{@link #complete(String, ProcessContext, long)}补充结果后写入
+     * 没有执行ID时直接提交
+     * @param executionId 流程执行ID
+     * @param requestLog 请求日志
+     * @param requestParams 请求参数
+     */
+    public void begin(String executionId, SysRequestLogEntity requestLog, Map<String, Object> requestParams) {
+        PendingLog pending = newPendingLog(requestLog, requestParams);
+        if (executionId == null) {
+            enqueue(pending);
+            return;
+        }
+        openLogs.put(executionId, pending);
+    }
+
+    /**
+     * 流程执行中的日志超时或超出容量时标记为失败后写入
+     * @param executionId 流程执行ID
+     * @param pending 日志
+     * @param cause 移除原因
+     */
+    private void onOpenLogRemoved(String executionId, PendingLog pending, RemovalCause cause) {
+        if (pending == null || !cause.wasEvicted()) {
+            return;
+        }
+        log.warn("流程 {} 的请求日志未在流程结束时写入({})，按未完成写入", executionId, cause);
+        pending.markUnfinished(cause == RemovalCause.EXPIRED ? "流程未在规定时间内结束" : "未结束的请求日志过多");
+        enqueue(pending);
+    }
+
+    /**
+     * 流程结束，补充响应时间、处理耗时和处理结果后提交；流程中未记录日志时忽略
+     * @param executionId 流程执行ID
+     * @param context 处理上下文
+     * @param processingTime 处理耗时（毫秒）
+     */
+    public void complete(String executionId, ProcessContext context, long processingTime) {
+        PendingLog pending = executionId != null ? openLogs.asMap().remove(executionId) : null;
+        if (pending == null) {
+            return;
+        }
+        SysRequestLogEntity requestLog = pending.requestLog;
+        requestLog.setResponseTime(new Date());
+        requestLog.setProcessingTime(processingTime);
+        if (context.isSuccess()) {
+            requestLog.setStatus(1);
+            pending.responseData = context.getResponseData();
+        } else {
+            requestLog.setStatus(0);
+            requestLog.setErrorMessage(context.getErrorMessage());
+        }
+        enqueue(pending);
+    }
+
+    private PendingLog newPendingLog(SysRequestLogEntity requestLog, Map<String, Object> requestParams) {
+        if (requestLog.getId() == null) {
+            requestLog.setId(IdWorker.getId());
+        }
+        // 提交时序列化参数，避免流程后续修改（包括嵌套对象的原地修改）影响日志内容
+        if (requestLog.getRequestParams() == null && requestParams != null) {
+            requestLog.setRequestParams(JSON.toJSONString(requestParams));
+        }
+        return new PendingLog(requestLog);
+    }
+
+    private boolean enqueue(PendingLog pending) {
+        if (queue.offer(pending)) {
+            return true;
+        }
+        overflowCount.incrementAndGet();
+        switch (policy) {
+            case SYNC:
+                flush(Collections.singletonList(pending));
+                return true;
+            case BLOCK:
+                try {
+                    if (queue.offer(pending, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            default:
+                break;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("请求日志队列已满，已丢弃 {} 条日志", dropped);
+        }
+        return false;
+    }
+
+    /**
+     * 获取等待写入的日志数量
+     * @return 日志数量
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 获取丢弃的日志数量
+     * @return 日志数量
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 后台写入循环
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                PendingLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingLog> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("请求日志写入线程异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 批量写入请求日志，批量失败时逐条写入
+     * @param batch 请求日志
+     */
+    private void flush(List<PendingLog> batch) {
+        long start = System.nanoTime();
+        List<SysRequestLogEntity> entities = new ArrayList<>(batch.size());
+        for (PendingLog pending : batch) {
+            entities.add(pending.toEntity());
+        }
+        int written = entities.size();
+        try {
+            sysRequestLogService.saveBatch(entities, batchSize);
+        } catch (Exception e) {
+            log.error("批量写入请求日志失败，改为逐条写入: {}", e.getMessage());
+            for (SysRequestLogEntity entity : entities) {
+                try {
+                    sysRequestLogService.save(entity);
+                } catch (Exception ex) {
+                    written--;
+                    failedCount.incrementAndGet();
+                    log.error("写入请求日志失败: {}, {}", entity.getRequestId(), ex.getMessage());
+                }
+            }
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                writtenCounter.increment(written);
+            }
+        }
+    }
+
+    /**
+     * 待写入的请求日志
+     */
+    private static final class PendingLog {
+        private final SysRequestLogEntity requestLog;
+        private Object responseData;
+
+        private PendingLog(SysRequestLogEntity requestLog) {
+            this.requestLog = requestLog;
+        }
+
+        private void markUnfinished(String errorMessage) {
+            requestLog.setStatus(0);
+            requestLog.setErrorMessage(errorMessage);
+        }
+
+        private SysRequestLogEntity toEntity() {
+            if (requestLog.getResponseResult() == null && responseData != null) {
+                requestLog.setResponseResult(JSON.toJSONString(responseData));
+            }
+            return requestLog;
+        }
+    }
+}
@@ -1,18 +1,146 @@
 package com.example.provincialnode.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.provincialnode.common.CacheInvalidationEvent;
+import com.example.provincialnode.common.CacheService;
 import com.example.provincialnode.entity.SysAccessOrganizationEntity;
 import com.example.provincialnode.mapper.SysAccessOrganizationMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 接入机构服务
+ * 按AppKey查询接入机构使用两级缓存：本地Caffeine缓存（L1）-> Redis（L2）-> 数据库，
+ * 本地缓存到达刷新时间后的首次访问触发后台刷新，刷新直接查询数据库并写回Redis，刷新期间继续返回旧值，
+ * 数据库中的变更最迟在refresh-after-write后的下一次访问时生效（变更后通过缓存失效广播可立即生效）
+ * 不存在的AppKey同样缓存（负缓存），避免无效AppKey反复查询数据库；新增的接入机构在此期间不可见，
+ * 最长持续expire-after-write，访问超过refresh-after-write的负缓存时同样在后台从数据库刷新
+ */
+@Slf4j
 @Service
 public class SysAccessOrganizationService extends ServiceImpl<SysAccessOrganizationMapper, SysAccessOrganizationEntity> {
+
+    // Redis缓存前缀，与CacheInitializer预加载的键一致
+    public static final String CACHE_PREFIX_APP_KEY = "access_org:app_key:";
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${provincial.node.cache.access-org.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${provincial.node.cache.access-org.expire-after-write:600}")
+    private long expireAfterWrite;
+
+    @Value("${provincial.node.cache.access-org.refresh-after-write:60}")
+    private long refreshAfterWrite;
+
+    @Value("${provincial.node.cache.access-org.redis-ttl:3600}")
+    private long redisTtl;
+
+    // 本地缓存，不存在的AppKey同样缓存，避免重复查询数据库
+    private LoadingCache<String, Optional<SysAccessOrganizationEntity>> localCache;
+
+    @PostConstruct
+    public void initCache() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS)
+                .refreshAfterWrite(refreshAfterWrite, TimeUnit.SECONDS)
+                .recordStats()
+                .build(new CacheLoader<String, Optional<SysAccessOrganizationEntity>>() {
+                    @Override
+                    public Optional<SysAccessOrganizationEntity> load(String appKey) {
+                        return loadByAppKey(appKey);
+                    }
+
+                    @Override
+                    public Optional<SysAccessOrganizationEntity> reload(String appKey, Optional<SysAccessOrganizationEntity> oldValue) {
+                        return reloadFromDb(appKey);
+                    }
+                });
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, "accessOrganization");
+        }
+    }
+
+    /**
+     * 按AppKey查询接入机构
+     * @param appKey AppKey
+     * @return 接入机构，不存在时返回null
+     */
     public SysAccessOrganizationEntity selectByAppKey(String appKey) {
+        if (appKey == null) {
+            return null;
+        }
+        return localCache.get(appKey).orElse(null);
+    }
+
+    /**
+     * 按AppKey从数据库查询接入机构
+     * @param appKey AppKey
+     * @return 接入机构
+     */
+    public SysAccessOrganizationEntity selectByAppKeyFromDb(String appKey) {
         return this.getOne(new QueryWrapper<SysAccessOrganizationEntity>().eq("app_key", appKey));
     }
 
+    /**
+     * 将接入机构写入Redis缓存，过期时间为redis-ttl
+     * @param org 接入机构
+     */
+    public void putRedisCache(SysAccessOrganizationEntity org) {
+        if (org != null && org.getAppKey() != null) {
+            cacheService.set(CACHE_PREFIX_APP_KEY + org.getAppKey(), org, redisTtl, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 清除本地缓存中的接入机构，下次查询时重新加载
+     * @param appKey AppKey
+     */
+    public void evictLocalCache(String appKey) {
+        if (appKey != null) {
+            localCache.invalidate(appKey);
+        }
+    }
+
+    /**
+     * 清除本地缓存中的所有接入机构
+     */
+    public void evictAllLocalCache() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 接入机构变更时清除本地缓存
+     * @param event 缓存失效事件
+     */
+    @EventListener(condition = "#event.type.name() == 'ACCESS_ORG'")
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (event.isAll()) {
+            evictAllLocalCache();
+        } else {
+            evictLocalCache(event.getKey());
+        }
+    }
+
     public List<SysAccessOrganizationEntity> selectAll() {
         return this.list();
     }
@@ -20,4 +148,49 @@ public class SysAccessOrganizationService extends ServiceImpl<SysAccessOrganizat
     public List<SysAccessOrganizationEntity> selectEnabled() {
         return this.list(new QueryWrapper<SysAccessOrganizationEntity>().eq("status", 1));
     }
+
+    /**
+     * 加载接入机构：先查Redis，Redis不可用或未命中时查数据库并写回Redis
+     * @param appKey AppKey
+     * @return 接入机构
+     */
+    private Optional<SysAccessOrganizationEntity> loadByAppKey(String appKey) {
+        String cacheKey = CACHE_PREFIX_APP_KEY + appKey;
+        try {
+            SysAccessOrganizationEntity cached = cacheService.get(cacheKey, SysAccessOrganizationEntity.class);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        } catch (Exception e) {
+            log.warn("从Redis读取接入机构失败，改为查询数据库: {}, {}", appKey, e.getMessage());
+        }
+        SysAccessOrganizationEntity org = selectByAppKeyFromDb(appKey);
+        if (org != null) {
+            try {
+                putRedisCache(org);
+            } catch (Exception e) {
+                log.warn("写入接入机构Redis缓存失败: {}, {}", appKey, e.getMessage());
+            }
+        }
+        return Optional.ofNullable(org);
+    }
+
+    /**
+     * 本地缓存到期刷新：直接查询数据库，使数据库中的变更生效，并同步更新Redis（不存在时删除Redis中的旧值）
+     * @param appKey AppKey
+     * @return 接入机构
+     */
+    private Optional<SysAccessOrganizationEntity> reloadFromDb(String appKey) {
+        SysAccessOrganizationEntity org = selectByAppKeyFromDb(appKey);
+        try {
+            if (org != null) {
+                putRedisCache(org);
+            } else {
+                cacheService.delete(CACHE_PREFIX_APP_KEY + appKey);
+            }
+        } catch (Exception e) {
+            log.warn("更新接入机构Redis缓存失败: {}, {}", appKey, e.getMessage());
+        }
+        return Optional.ofNullable(org);
+    }
 }
@@ -1,22 +1,145 @@
 package com.example.provincialnode.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.example.provincialnode.entity.SysAccessOrganizationEntity;
+import com.example.provincialnode.common.CacheInvalidationEvent;
 import com.example.provincialnode.entity.SysInterfaceDefinitionEntity;
-import com.example.provincialnode.mapper.SysAccessOrganizationMapper;
 import com.example.provincialnode.mapper.SysInterfaceDefinitionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * 接口定义服务
+ * 按请求路径查找接口定义使用内存路由表：启动时加载全部接口定义，接口定义变更时整体替换；
+ * 路由表包含所有接口定义，不在路由表中的路径直接返回不存在，不再查询数据库
+ */
+@Slf4j
 @Service
 public class SysInterfaceDefinitionService extends ServiceImpl<SysInterfaceDefinitionMapper, SysInterfaceDefinitionEntity> {
 
+    // 路由表：请求路径 -> 接口定义，只读，变更时整体替换
+    private volatile Map<String, SysInterfaceDefinitionEntity> routeTable;
+
+    private final ReentrantLock routeLock = new ReentrantLock();
+
     public SysInterfaceDefinitionEntity findByInterfaceCode(String interfaceCode) {
         return this.getOne(new QueryWrapper<SysInterfaceDefinitionEntity>().eq("interface_code", interfaceCode));
     }
 
-    public  SysInterfaceDefinitionEntity findByRequestPath(String interfacePath) {
+    /**
+     * 按请求路径查找接口定义
+     * @param interfacePath 请求路径
+     * @return 接口定义，不存在时返回null
+     */
+    public SysInterfaceDefinitionEntity findByRequestPath(String interfacePath) {
+        Map<String, SysInterfaceDefinitionEntity> routes = routeTable;
+        if (routes == null) {
+            routes = reloadRoutes();
+        }
+        return interfacePath == null ? null : routes.get(interfacePath);
+    }
+
+    /**
+     * 按请求路径从数据库查询接口定义
+     * @param interfacePath 请求路径
+     * @return 接口定义
+     */
+    public SysInterfaceDefinitionEntity findByRequestPathFromDb(String interfacePath) {
         return getOne(new QueryWrapper<SysInterfaceDefinitionEntity>().eq("request_path", interfacePath));
     }
+
+    /**
+     * 从数据库加载全部接口定义，替换路由表
+     * @return 路由表
+     */
+    public Map<String, SysInterfaceDefinitionEntity> reloadRoutes() {
+        routeLock.lock();
+        try {
+            List<SysInterfaceDefinitionEntity> definitions = this.list();
+            Map<String, SysInterfaceDefinitionEntity> routes = new HashMap<>(Math.max(16, definitions.size() * 2));
+            for (SysInterfaceDefinitionEntity definition : definitions) {
+                if (definition.getRequestPath() == null) {
+                    continue;
+                }
+                SysInterfaceDefinitionEntity previous = routes.putIfAbsent(definition.getRequestPath(), definition);
+                if (previous != null) {
+                    log.warn("请求路径重复，使用接口: {}, 忽略接口: {}, 路径: {}",
+                            previous.getInterfaceCode(), definition.getInterfaceCode(), definition.getRequestPath());
+                }
+            }
+            routeTable = Collections.unmodifiableMap(routes);
+            log.info("加载接口路由表完成，接口数量: {}", routes.size());
+            return routeTable;
+        } finally {
+            routeLock.unlock();
+        }
+    }
+
+    /**
+     * 从数据库重新加载单个请求路径的接口定义，替换路由表
+     * 接口的请求路径变更时，无论按新路径还是旧路径刷新，都按接口编码移除旧路径并加入新路径
+     * @param interfacePath 请求路径
+     */
+    public void refreshRoute(String interfacePath) {
+        routeLock.lock();
+        try {
+            if (routeTable == null) {
+                reloadRoutes();
+                return;
+            }
+            Map<String, SysInterfaceDefinitionEntity> routes = new HashMap<>(routeTable);
+            SysInterfaceDefinitionEntity previous = routes.remove(interfacePath);
+            SysInterfaceDefinitionEntity definition = findByRequestPathFromDb(interfacePath);
+            if (definition != null) {
+                putRoute(routes, definition);
+            }
+            if (previous != null && (definition == null || !Objects.equals(previous.getInterfaceCode(), definition.getInterfaceCode()))) {
+                // 原接口已删除或请求路径已变更
+                SysInterfaceDefinitionEntity moved = findByInterfaceCode(previous.getInterfaceCode());
+                if (moved != null && moved.getRequestPath() != null) {
+                    putRoute(routes, moved);
+                }
+            }
+            routeTable = Collections.unmodifiableMap(routes);
+            log.info("刷新接口路由成功: {}", interfacePath);
+        } finally {
+            routeLock.unlock();
+        }
+    }
+
+    /**
+     * 加入接口路由，移除同一接口编码的旧路径
+     * @param routes 路由表
+     * @param definition 接口定义
+     */
+    private static void putRoute(Map<String, SysInterfaceDefinitionEntity> routes, SysInterfaceDefinitionEntity definition) {
+        routes.values().removeIf(route -> Objects.equals(route.getInterfaceCode(), definition.getInterfaceCode()));
+        routes.put(definition.getRequestPath(), definition);
+    }
+
+    /**
+     * 接口定义变更时刷新路由表
+     * @param event 缓存失效事件
+     */
+    @EventListener(condition = "#event.type.name() == 'INTERFACE_DEFINITION'")
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        try {
+            if (event.isAll()) {
+                reloadRoutes();
+            } else {
+                refreshRoute(event.getKey());
+            }
+        } catch (Exception e) {
+            // 刷新失败时丢弃路由表，下次请求时重新加载
+            log.error("刷新接口路由表失败: {}", e.getMessage(), e);
+            routeTable = null;
+        }
+    }
 }
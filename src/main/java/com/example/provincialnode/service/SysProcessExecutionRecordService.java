@@ -167,7 +167,15 @@ public class SysProcessExecutionRecordService extends ServiceImpl<SysProcessExec
         if (record == null) {
             throw new RuntimeException("执行记录不存在: " + executionId);
         }
+        return restoreContext(record);
+    }
 
+    /**
+     * 从执行记录中恢复上下文
+     * @param record 执行记录
+     * @return 处理上下文
+     */
+    public ProcessContext restoreContext(SysProcessExecutionRecordEntity record) {
         String contextJson = record.getExecutionContext();
         if (contextJson != null && !contextJson.isEmpty()) {
             try {
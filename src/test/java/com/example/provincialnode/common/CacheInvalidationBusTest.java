@@ -0,0 +1,83 @@
+package com.example.provincialnode.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheInvalidationBusTest {
+
+    private static final String CHANNEL = "provincial-node:cache-invalidation";
+
+    private CacheInvalidationBus bus;
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "channel", CHANNEL);
+        ReflectionTestUtils.setField(bus, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(bus, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void testPublishInvalidatesLocallyAndBroadcasts() {
+        bus.publish(CacheInvalidationEvent.CacheType.ACCESS_ORG, "city");
+
+        ArgumentCaptor<CacheInvalidationEvent> event = ArgumentCaptor.forClass(CacheInvalidationEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(CacheInvalidationEvent.CacheType.ACCESS_ORG, event.getValue().getType());
+        assertEquals("city", event.getValue().getKey());
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+
+        // 自己发出的消息不重复处理
+        bus.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), message.getValue().getBytes(StandardCharsets.UTF_8)), null);
+        verify(eventPublisher, times(1)).publishEvent((Object) any());
+    }
+
+    @Test
+    void testMessageFromOtherInstance() {
+        String message = "{\"source\": \"other\", \"type\": \"PROCESS_CONFIG\", \"key\": null}";
+
+        bus.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)), null);
+
+        ArgumentCaptor<CacheInvalidationEvent> event = ArgumentCaptor.forClass(CacheInvalidationEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(CacheInvalidationEvent.CacheType.PROCESS_CONFIG, event.getValue().getType());
+        assertTrue(event.getValue().isAll());
+    }
+
+    @Test
+    void testSubscribeRetriesWhenRedisUnavailable() {
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        doThrow(new RedisConnectionFailureException("Unable to connect to Redis")).doNothing().when(container).start();
+        ReflectionTestUtils.setField(bus, "redisMessageListenerContainer", container);
+        ReflectionTestUtils.setField(bus, "retryIntervalMs", 10L);
+
+        // 订阅失败不抛出异常，在后台重试
+        bus.subscribe();
+
+        verify(container, timeout(1000).times(2)).start();
+        verify(container, times(1)).stop();
+        verify(container).addMessageListener(same(bus), any(org.springframework.data.redis.listener.Topic.class));
+        bus.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.provincialnode.common;
+
+import cn.hutool.crypto.SmUtil;
+import cn.hutool.crypto.asymmetric.SM2;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignUtilTest {
+
+    private final SM2 signKeyPair = SmUtil.sm2();
+
+    private final SM2 encryptKeyPair = SmUtil.sm2();
+
+    @Test
+    void testSignAndVerify() throws Exception {
+        String content = "{\"uniscId\": \"22222\", \"name\": \"金融1\"}";
+
+        // 多次签名、验签复用缓存的密钥参数
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> signature = SignUtil.signData(content, signKeyPair.getPrivateKeyBase64(), encryptKeyPair.getPublicKeyBase64());
+            String originalData = SignUtil.verifySignature(signature, signature.get("encryptedData").toString(),
+                    signKeyPair.getPublicKeyBase64(), encryptKeyPair.getPrivateKeyBase64());
+            assertEquals(content, originalData);
+        }
+    }
+
+    @Test
+    void testVerifyWithWrongPublicKey() throws Exception {
+        String content = "{\"uniscId\": \"22222\"}";
+        Map<String, Object> signature = SignUtil.signData(content, signKeyPair.getPrivateKeyBase64(), encryptKeyPair.getPublicKeyBase64());
+
+        String originalData = SignUtil.verifySignature(signature, signature.get("encryptedData").toString(),
+                SmUtil.sm2().getPublicKeyBase64(), encryptKeyPair.getPrivateKeyBase64());
+
+        assertNull(originalData);
+    }
+}
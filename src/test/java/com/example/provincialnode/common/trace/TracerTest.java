@@ -0,0 +1,95 @@
+package com.example.provincialnode.common.trace;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Tracer tracer;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("spans.jsonl");
+        tracer = new Tracer();
+        ReflectionTestUtils.setField(tracer, "serviceName", "provincial-node-service");
+        ReflectionTestUtils.setField(tracer, "enabled", true);
+        ReflectionTestUtils.setField(tracer, "exporter", "file");
+        ReflectionTestUtils.setField(tracer, "file", file.toString());
+        ReflectionTestUtils.setField(tracer, "recentSpans", 100);
+        ReflectionTestUtils.setField(tracer, "queueCapacity", 100);
+    }
+
+    @Test
+    void testFileExportIsOtlpJson() throws Exception {
+        tracer.start();
+        Span parent = Span.fromTraceParent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        Span span = tracer.startSpan("process", parent);
+        span.setAttribute("appKey", "city-001").setAttribute("retryCount", 2)
+                .setAttribute("cached", true).setAttribute("amount", 12.5);
+        Span failed = tracer.startSpan("node", span);
+        tracer.endSpan(failed, false);
+        tracer.endSpan(span, true);
+        tracer.stop();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        JSONObject resourceSpans = JSON.parseObject(lines.get(0)).getJSONArray("resourceSpans").getJSONObject(0);
+        JSONObject serviceName = resourceSpans.getJSONObject("resource").getJSONArray("attributes").getJSONObject(0);
+        assertEquals("service.name", serviceName.getString("key"));
+        assertEquals("provincial-node-service", serviceName.getJSONObject("value").getString("stringValue"));
+        JSONObject scopeSpans = resourceSpans.getJSONArray("scopeSpans").getJSONObject(0);
+        assertNotNull(scopeSpans.getJSONObject("scope").getString("name"));
+
+        JSONArray spans = scopeSpans.getJSONArray("spans");
+        assertEquals(2, spans.size());
+        JSONObject failedSpan = spans.getJSONObject(0);
+        assertEquals(span.getSpanId(), failedSpan.getString("parentSpanId"));
+        assertEquals(2, failedSpan.getJSONObject("status").getIntValue("code"));
+
+        JSONObject processSpan = spans.getJSONObject(1);
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", processSpan.getString("traceId"));
+        assertEquals("00f067aa0ba902b7", processSpan.getString("parentSpanId"));
+        assertEquals("process", processSpan.getString("name"));
+        assertEquals(1, processSpan.getJSONObject("status").getIntValue("code"));
+        // 纳秒时间按int64规则输出为字符串
+        assertEquals(String.valueOf(span.getStartTimeUnixNano()), processSpan.get("startTimeUnixNano"));
+        assertEquals(String.valueOf(span.getEndTimeUnixNano()), processSpan.get("endTimeUnixNano"));
+        assertFalse(processSpan.containsKey("durationMs"));
+
+        JSONArray attributes = processSpan.getJSONArray("attributes");
+        assertEquals(4, attributes.size());
+        assertEquals("appKey", attributes.getJSONObject(0).getString("key"));
+        assertEquals("city-001", attributes.getJSONObject(0).getJSONObject("value").getString("stringValue"));
+        assertEquals("2", attributes.getJSONObject(1).getJSONObject("value").get("intValue"));
+        assertEquals(Boolean.TRUE, attributes.getJSONObject(2).getJSONObject("value").get("boolValue"));
+        assertEquals(12.5, attributes.getJSONObject(3).getJSONObject("value").getDoubleValue("doubleValue"));
+    }
+
+    @Test
+    void testRootSpanHasNoParent() {
+        Span span = tracer.startSpan("process", null);
+        tracer.endSpan(span, true);
+
+        assertFalse(span.toOtlpSpan().containsKey("parentSpanId"));
+        // 查询端点仍使用便于阅读的格式
+        assertEquals("OK", ((Map<?, ?>) tracer.getTrace(span.getTraceId()).get(0).get("status")).get("code"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.provincialnode.controller;
+
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityNodeRequestMessageConverterTest {
+
+    private final CityNodeRequestMessageConverter converter = new CityNodeRequestMessageConverter();
+
+    private CityNodeRequest read(String body) throws Exception {
+        MockHttpInputMessage inputMessage = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return converter.read(CityNodeRequest.class, inputMessage);
+    }
+
+    @Test
+    void testMergeSectionsInOnePass() throws Exception {
+        CityNodeRequest request = read("{\"txnCommCom\": {\"appKey\": \"city-001\", \"txnIttChnlId\": \"C1\"},"
+                + " \"fileCom\": [1, 2], \"txnBodyCom\": {\"txnIttChnlId\": \"B1\", \"amount\": 12.50,"
+                + " \"enterprise\": {\"name\": \"测试企业\"}}}");
+
+        assertTrue(request.isTxnCommComPresent());
+        assertTrue(request.isTxnBodyComPresent());
+        Map<String, Object> requestParams = request.getRequestParams();
+        assertEquals(4, requestParams.size());
+        assertEquals("city-001", requestParams.get("appKey"));
+        // 同名字段以txnCommCom为准
+        assertEquals("C1", requestParams.get("txnIttChnlId"));
+        assertEquals(new BigDecimal("12.50"), requestParams.get("amount"));
+        assertEquals("测试企业", ((JSONObject) requestParams.get("enterprise")).getString("name"));
+    }
+
+    @Test
+    void testMissingSection() throws Exception {
+        CityNodeRequest request = read("{\"txnBodyCom\": {}}");
+
+        assertFalse(request.isTxnCommComPresent());
+        assertTrue(request.isTxnBodyComPresent());
+        assertTrue(request.getRequestParams().isEmpty());
+    }
+
+    @Test
+    void testMalformedSection() throws Exception {
+        CityNodeRequest request = read("{\"txnBodyCom\": \"abc\", \"txnCommCom\": {\"appKey\": \"city-001\"}}");
+        assertEquals(CityNodeRequest.TXN_BODY_COM, request.getMalformedSection());
+        assertFalse(request.isTxnBodyComPresent());
+        // 格式错误的结构体之后的字段照常读取
+        assertEquals("city-001", request.getRequestParams().get("appKey"));
+
+        assertEquals(CityNodeRequest.TXN_COMM_COM, read("{\"txnCommCom\": null, \"txnBodyCom\": {}}").getMalformedSection());
+        assertEquals(CityNodeRequest.TXN_BODY_COM, read("{\"txnCommCom\": {}, \"txnBodyCom\": [1, 2]}").getMalformedSection());
+        assertNull(read("{\"txnCommCom\": {}, \"txnBodyCom\": {}}").getMalformedSection());
+    }
+
+    @Test
+    void testMalformedBody() {
+        assertThrows(HttpMessageNotReadableException.class, () -> read("{\"txnBodyCom\": {\"a\": "));
+    }
+}
@@ -1,10 +1,11 @@
 package com.example.provincialnode.controller;
 
-import com.example.provincialnode.common.Result;
 import com.example.provincialnode.common.ResultCode;
 import com.example.provincialnode.entity.SysAccessOrganizationEntity;
 import com.example.provincialnode.entity.SysInterfaceDefinitionEntity;
 import com.example.provincialnode.processor.ProcessEngine;
+import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.service.ProvincialIdentity;
 import com.example.provincialnode.service.SysAccessOrganizationService;
 import com.example.provincialnode.service.SysInterfaceDefinitionService;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,14 +15,25 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -40,6 +52,9 @@ public class InterfaceProcessTest {
     @Mock
     private ProcessEngine processEngine;
 
+    @Mock
+    private ProvincialIdentity provincialIdentity;
+
     @InjectMocks
     private MainController mainController;
 
@@ -48,7 +63,10 @@ public class InterfaceProcessTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        mockMvc = MockMvcBuilders.standaloneSetup(mainController).build();
+        when(provincialIdentity.getPublicKey()).thenReturn("test_public_key");
+        mockMvc = MockMvcBuilders.standaloneSetup(mainController)
+                .setMessageConverters(new CityNodeRequestMessageConverter(), new MappingJackson2HttpMessageConverter())
+                .build();
     }
 
     /**
@@ -71,6 +89,8 @@ public class InterfaceProcessTest {
         interfaceDefinition.setRequestMethod("GET");
         interfaceDefinition.setStatus(1);
         interfaceDefinition.setInterfaceType(0);
+        interfaceDefinition.setProcessCode("PROCESS_QUERY");
+        when(sysInterfaceDefinitionService.findByRequestPath(requestUrl)).thenReturn(interfaceDefinition);
         
         // 3. 模拟机构信息
         SysAccessOrganizationEntity organization = new SysAccessOrganizationEntity();
@@ -81,25 +101,26 @@ public class InterfaceProcessTest {
         organization.setStatus(1);
         
         // 4. 模拟处理结果
-        Result mockResult = Result.success();
+        when(processEngine.executeProcessAsync(eq("PROCESS_QUERY"), any(ProcessContext.class)))
+                .thenReturn(CompletableFuture.completedFuture(processResult("测试数据")));
 
         // 6. 构建请求参数
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("enterpriseName", "测试企业");
-        requestBody.put("creditCode", "91110000MA001AA1AA");
-        
-        String requestJson = "{\"enterpriseName\":\"测试企业\",\"creditCode\":\"91110000MA001AA1AA\"}";
+        String requestJson = "{\"txnCommCom\":{\"txnIttChnlId\":\"C1\"},\"txnBodyCom\":{\"enterpriseName\":\"测试企业\",\"creditCode\":\"91110000MA001AA1AA\"}}";
         
-        // 7. 执行请求
-        mockMvc.perform(post(requestUrl)
+        // 7. 执行请求，流程异步完成后再派发响应
+        MvcResult mvcResult = mockMvc.perform(post(requestUrl)
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("appKey", appKey)
                 .header("token", token)
                 .content(requestJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.code").value(ResultCode.SUCCESS.getCode()))
-                .andExpect(jsonPath("$.message").value(ResultCode.SUCCESS.getMessage()))
-                .andExpect(jsonPath("$.data").value("测试数据"));
+                .andExpect(jsonPath("$['C-API-Status']").value("00"))
+                .andExpect(jsonPath("$['C-Response-Code']").value(ResultCode.SUCCESS.getCode()))
+                .andExpect(jsonPath("$['C-Response-Desc']").value(ResultCode.SUCCESS.getMessage()))
+                .andExpect(jsonPath("$['C-Response-Body'].data").value("测试数据"));
     }
 
     /**
@@ -122,6 +143,8 @@ public class InterfaceProcessTest {
         interfaceDefinition.setRequestMethod("POST");
         interfaceDefinition.setStatus(1);
         interfaceDefinition.setInterfaceType(1);
+        interfaceDefinition.setProcessCode("PROCESS_UPLOAD");
+        when(sysInterfaceDefinitionService.findByRequestPath(requestUrl)).thenReturn(interfaceDefinition);
 
         // 3. 模拟机构信息
         SysAccessOrganizationEntity organization = new SysAccessOrganizationEntity();
@@ -132,21 +155,26 @@ public class InterfaceProcessTest {
         organization.setStatus(1);
         
         // 4. 模拟处理结果
-        Result mockResult = Result.success();
+        when(processEngine.executeProcessAsync(eq("PROCESS_UPLOAD"), any(ProcessContext.class)))
+                .thenReturn(CompletableFuture.completedFuture(processResult("数据上传成功")));
 
         // 6. 构建请求参数
-        String requestJson = "{\"enterpriseName\":\"测试企业\",\"creditCode\":\"91110000MA001AA1AA\",\"contactPerson\":\"张三\",\"contactPhone\":\"13800138000\"}";
+        String requestJson = "{\"txnCommCom\":{\"txnIttChnlId\":\"C1\"},\"txnBodyCom\":{\"enterpriseName\":\"测试企业\",\"creditCode\":\"91110000MA001AA1AA\",\"contactPerson\":\"张三\",\"contactPhone\":\"13800138000\"}}";
         
-        // 7. 执行请求
-        mockMvc.perform(post(requestUrl)
+        // 7. 执行请求，流程异步完成后再派发响应
+        MvcResult mvcResult = mockMvc.perform(post(requestUrl)
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("appKey", appKey)
                 .header("token", token)
                 .content(requestJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.code").value(ResultCode.SUCCESS.getCode()))
-                .andExpect(jsonPath("$.message").value(ResultCode.SUCCESS.getMessage()))
-                .andExpect(jsonPath("$.data").value("数据上传成功"));
+                .andExpect(jsonPath("$['C-API-Status']").value("00"))
+                .andExpect(jsonPath("$['C-Response-Code']").value(ResultCode.SUCCESS.getCode()))
+                .andExpect(jsonPath("$['C-Response-Desc']").value(ResultCode.SUCCESS.getMessage()))
+                .andExpect(jsonPath("$['C-Response-Body'].data").value("数据上传成功"));
     }
 
     /**
@@ -168,16 +196,47 @@ public class InterfaceProcessTest {
         interfaceDefinition.setRequestPath("/api/" + interfaceCode);
         interfaceDefinition.setInterfaceType(1);
         interfaceDefinition.setStatus(0); // 接口禁用
+        when(sysInterfaceDefinitionService.findByRequestPath(requestUrl)).thenReturn(interfaceDefinition);
 
         // 4. 执行请求
-        mockMvc.perform(post(requestUrl)
+        MvcResult mvcResult = mockMvc.perform(post(requestUrl)
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("appKey", appKey)
                 .header("token", token)
                 .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.code").value(ResultCode.NOT_FOUND.getCode()))
-                .andExpect(jsonPath("$.message").value(ResultCode.NOT_FOUND.getMessage()));
+                .andExpect(jsonPath("$['C-API-Status']").value("01"))
+                .andExpect(jsonPath("$['C-Response-Code']").value(ResultCode.SERVICE_UNAVAILABLE.getCode()))
+                .andExpect(jsonPath("$['C-Response-Desc']").value("接口未启用"));
+        verify(processEngine, never()).executeProcessAsync(anyString(), any());
+    }
+
+    /**
+     * 测试结构体不是JSON对象
+     */
+    @Test
+    void testMalformedSection() throws Exception {
+        String requestUrl = "/api/QUERY_ENTERPRISE_INFO";
+        SysInterfaceDefinitionEntity interfaceDefinition = new SysInterfaceDefinitionEntity();
+        interfaceDefinition.setInterfaceCode("QUERY_ENTERPRISE_INFO");
+        interfaceDefinition.setRequestPath(requestUrl);
+        interfaceDefinition.setStatus(1);
+        interfaceDefinition.setProcessCode("PROCESS_QUERY");
+        when(sysInterfaceDefinitionService.findByRequestPath(requestUrl)).thenReturn(interfaceDefinition);
+
+        MvcResult mvcResult = mockMvc.perform(post(requestUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"txnCommCom\":{\"txnIttChnlId\":\"C1\"},\"txnBodyCom\":\"abc\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['C-API-Status']").value("01"))
+                .andExpect(jsonPath("$['C-Response-Code']").value(ResultCode.PARAM_ERROR.getCode()));
+        verify(processEngine, never()).executeProcessAsync(anyString(), any());
     }
 
     /**
@@ -190,18 +249,36 @@ public class InterfaceProcessTest {
         String appKey = "test_app_key";
         String token = "test_token";
         
-//        // 2. 设置mock行为
-//        when(interfaceDefinitionRepository.findByRequestPath(anyString())).thenReturn(Optional.empty());
+        // 2. 设置mock行为
+        when(sysInterfaceDefinitionService.findByRequestPath(anyString())).thenReturn(null);
         
         // 3. 执行请求
-        mockMvc.perform(post(requestUrl)
+        MvcResult mvcResult = mockMvc.perform(post(requestUrl)
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("appKey", appKey)
                 .header("token", token)
                 .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.code").value(ResultCode.DATA_NOT_FOUND.getCode()))
-                .andExpect(jsonPath("$.message").value(ResultCode.NOT_FOUND.getMessage()));
+                .andExpect(jsonPath("$['C-API-Status']").value("01"))
+                .andExpect(jsonPath("$['C-Response-Code']").value(ResultCode.NOT_FOUND.getCode()))
+                .andExpect(jsonPath("$['C-Response-Desc']").value(ResultCode.NOT_FOUND.getMessage()));
+    }
+
+    /**
+     * 构建流程执行成功的上下文，响应数据与响应节点输出结构一致
+     */
+    private ProcessContext processResult(Object data) {
+        Map<String, Object> responseData = new HashMap<>();
+        responseData.put("success", true);
+        responseData.put("errorCode", ResultCode.SUCCESS.getCode());
+        responseData.put("errorMessage", ResultCode.SUCCESS.getMessage());
+        responseData.put("data", data);
+        ProcessContext context = new ProcessContext();
+        context.setResponseData(responseData);
+        return context;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,348 @@
+package com.example.provincialnode.processor;
+
+import com.example.provincialnode.common.ResultCode;
+import com.example.provincialnode.common.trace.Span;
+import com.example.provincialnode.common.trace.Tracer;
+import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
+import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import com.example.provincialnode.processor.plan.ProcessPlanCache;
+import com.example.provincialnode.service.ProcessExecutionJournal;
+import com.example.provincialnode.service.RequestLogWriter;
+import com.example.provincialnode.service.SysProcessNodeConfigService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProcessEngineTest {
+
+    private ProcessEngine processEngine;
+
+    private ProcessExecutionJournal executionJournal;
+
+    private RequestLogWriter requestLogWriter;
+
+    private SysProcessNodeConfigService processNodeConfigService;
+
+    private final Map<String, Node> nodeMap = new HashMap<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ProcessMetrics processMetrics = new ProcessMetrics();
+
+    private final Tracer tracer = new Tracer();
+
+    @BeforeEach
+    void setUp() {
+        executionJournal = mock(ProcessExecutionJournal.class);
+        SysProcessExecutionRecordEntity record = new SysProcessExecutionRecordEntity();
+        record.setExecutionId("execution-1");
+        when(executionJournal.begin(any(), any(), any(), any())).thenReturn(record);
+
+        ReflectionTestUtils.setField(processMetrics, "meterRegistry", meterRegistry);
+        processNodeConfigService = mock(SysProcessNodeConfigService.class);
+        ProcessPlanCache processPlanCache = new ProcessPlanCache();
+        ReflectionTestUtils.setField(processPlanCache, "processNodeConfigService", processNodeConfigService);
+        ReflectionTestUtils.setField(processPlanCache, "nodeMap", nodeMap);
+
+        processEngine = new ProcessEngine(4, false);
+        ReflectionTestUtils.setField(processEngine, "executionJournal", executionJournal);
+        ReflectionTestUtils.setField(processEngine, "processPlanCache", processPlanCache);
+        requestLogWriter = mock(RequestLogWriter.class);
+        ReflectionTestUtils.setField(processEngine, "requestLogWriter", requestLogWriter);
+        ReflectionTestUtils.setField(processEngine, "processMetrics", processMetrics);
+        ReflectionTestUtils.setField(tracer, "enabled", true);
+        ReflectionTestUtils.setField(tracer, "recentSpans", 100);
+        ReflectionTestUtils.setField(processEngine, "tracer", tracer);
+        ReflectionTestUtils.setField(processEngine, "parallelEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processEngine.shutdown();
+    }
+
+    private void configure(String nodeId, String nodeConfig, String retryConfig) {
+        SysProcessNodeConfigEntity entity = new SysProcessNodeConfigEntity();
+        entity.setProcessCode("PROCESS_TEST");
+        entity.setNodeId(nodeId);
+        entity.setNodeName(nodeId);
+        entity.setNodeConfig(nodeConfig);
+        entity.setRetryConfig(retryConfig);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Collections.singletonList(entity));
+    }
+
+    private ProcessContext newContext() {
+        ProcessContext context = new ProcessContext();
+        context.setRequestId("request-1");
+        context.setRequestParams(new HashMap<>());
+        return context;
+    }
+
+    @Test
+    void testRetryDoesNotBlockCaller() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        nodeMap.put("flakyNode", new TestNode("flakyNode", context -> {
+            if (attempts.incrementAndGet() < 3) {
+                return false;
+            }
+            context.setAttributeByParamName(Node.outParamName, Collections.singletonMap("result", "ok"));
+            return true;
+        }));
+        configure("flakyNode", "{\"outParamName\": \"flakyResult\"}", "{\"maxRetryCount\": 3, \"initialDelay\": 200, \"multiplier\": 1.0}");
+
+        CompletableFuture<ProcessContext> future = processEngine.executeProcessAsync("PROCESS_TEST", newContext());
+
+        // 首次执行失败后立即返回，重试由调度线程计时
+        assertFalse(future.isDone());
+        ProcessContext result = future.get(5, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals(3, attempts.get());
+        assertEquals(Collections.singletonMap("result", "ok"), result.getResponseData());
+        verify(executionJournal).complete(eq("execution-1"), eq(2), isNull(), same(result));
+
+        // 每次执行、节点和流程的耗时按结果分别记录
+        assertEquals(1, meterRegistry.get("process.node.attempt").tags("nodeId", "flakyNode", "attempt", "first", "outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("process.node.attempt").tags("attempt", "retry", "outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("process.node.attempt").tags("attempt", "retry", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("process.node.duration").tags("processCode", "PROCESS_TEST", "nodeId", "flakyNode", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("process.duration").tags("processCode", "PROCESS_TEST", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRetryNotRunOnSchedulerWhenPoolSaturated() throws Exception {
+        // 占满并行线程池的线程和队列
+        ExecutorService parallelExecutor = (ExecutorService) ReflectionTestUtils.getField(processEngine, "parallelExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4 + 16; i++) {
+            parallelExecutor.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        nodeMap.put("flakyNode", new TestNode("flakyNode", context -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            if (attemptThreads.size() < 2) {
+                return false;
+            }
+            context.setAttributeByParamName(Node.outParamName, "ok");
+            return true;
+        }));
+        configure("flakyNode", "{\"outParamName\": \"flakyResult\"}", "{\"maxRetryCount\": 1, \"initialDelay\": 10, \"multiplier\": 1.0}");
+
+        CompletableFuture<ProcessContext> future = processEngine.executeProcessAsync("PROCESS_TEST", newContext());
+
+        // 线程池已满时重试等待重新提交，不在调度线程中执行
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+        assertEquals(1, attemptThreads.size());
+        release.countDown();
+        ProcessContext result = future.get(5, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals(2, attemptThreads.size());
+        assertNotEquals("process-retry-scheduler", attemptThreads.get(1));
+    }
+
+    @Test
+    void testRetryExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        nodeMap.put("failingNode", new TestNode("failingNode", context -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("national node unavailable");
+        }));
+        configure("failingNode", null, "{\"maxRetryCount\": 2, \"initialDelay\": 10, \"multiplier\": 2.0}");
+
+        ProcessContext result = processEngine.executeProcess("PROCESS_TEST", newContext());
+
+        assertFalse(result.isSuccess());
+        assertEquals(3, attempts.get());
+        assertEquals("节点执行异常: national node unavailable", result.getErrorMessage());
+        verify(executionJournal).complete(eq("execution-1"), eq(3), eq("节点执行异常: national node unavailable"), same(result));
+    }
+
+    @Test
+    void testInvalidNodeConfigFailsWithoutExecuting() {
+        AtomicInteger attempts = new AtomicInteger();
+        nodeMap.put("paramValidateNode", new TestNode("paramValidateNode", context -> attempts.incrementAndGet() > 0) {
+            @Override
+            public Object compileConfig(Map<String, Object> nodeConfig) {
+                throw new IllegalArgumentException("参数 code 的regex校验规则无效");
+            }
+        });
+        configure("paramValidateNode", "{\"validateRules\": \"[]\"}", null);
+
+        ProcessContext result = processEngine.executeProcess("PROCESS_TEST", newContext());
+
+        // 配置无效按系统错误处理，不执行节点
+        assertFalse(result.isSuccess());
+        assertEquals(ResultCode.SYSTEM_ERROR.getCode(), result.getErrorCode());
+        assertEquals("系统内部错误: 节点配置无效", result.getErrorMessage());
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    void testTimedOutAsyncNodeIsAbandoned() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        nodeMap.put("slowNode", new TestNode("slowNode", context -> {
+            attempts.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            context.setAttributeByParamName(Node.outParamName, "late");
+            return false;
+        }));
+        SysProcessNodeConfigEntity entity = new SysProcessNodeConfigEntity();
+        entity.setProcessCode("PROCESS_TEST");
+        entity.setNodeId("slowNode");
+        entity.setNodeName("slowNode");
+        entity.setNodeConfig("{\"outParamName\": \"slowResult\", \"timeoutMs\": 100}");
+        entity.setRetryConfig("{\"maxRetryCount\": 3, \"initialDelay\": 10, \"multiplier\": 1.0}");
+        entity.setAsyncExecution(true);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Collections.singletonList(entity));
+
+        ProcessContext result = processEngine.executeProcess("PROCESS_TEST", newContext());
+
+        assertFalse(result.isSuccess());
+        assertEquals("异步节点执行超时: slowNode", result.getErrorMessage());
+        // 超时后节点不再重试，结束后的输出不写入流程上下文
+        Thread.sleep(500);
+        assertEquals(1, attempts.get());
+        assertFalse(result.containsAttribute("slowResult"));
+    }
+
+    @Test
+    void testSpansFollowRemoteParent() {
+        nodeMap.put("traceNode", new TestNode("traceNode", context -> {
+            // 节点视图中为节点片段
+            context.setAttributeByParamName(Node.outParamName, context.getSpan().getName());
+            return true;
+        }));
+        configure("traceNode", "{\"outParamName\": \"traceResult\"}", null);
+        ProcessContext context = newContext();
+        context.setSpan(Span.fromTraceParent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+
+        ProcessContext result = processEngine.executeProcess("PROCESS_TEST", context);
+
+        assertEquals("node traceNode", result.getResponseData());
+        List<Map<String, Object>> trace = tracer.getTrace("4bf92f3577b34da6a3ce929d0e0e4736");
+        assertEquals(2, trace.size());
+        Map<String, Object> processSpan = trace.get(0);
+        Map<String, Object> nodeSpan = trace.get(1);
+        assertEquals("process PROCESS_TEST", processSpan.get("name"));
+        assertEquals("00f067aa0ba902b7", processSpan.get("parentSpanId"));
+        assertEquals(processSpan.get("spanId"), nodeSpan.get("parentSpanId"));
+        assertEquals("execution-1", ((Map<?, ?>) nodeSpan.get("attributes")).get("executionId"));
+        assertEquals(Collections.singletonMap("code", "OK"), nodeSpan.get("status"));
+    }
+
+    @Test
+    void testIntermediateDataReleased() {
+        nodeMap.put("firstNode", new TestNode("firstNode", context -> {
+            context.setAttributeByParamName(Node.outParamName, "first:" + context.<Map<String, Object>>getAttributeByParamName(Node.inParamName).get("id"));
+            return true;
+        }));
+        nodeMap.put("secondNode", new TestNode("secondNode", context -> {
+            context.setAttributeByParamName(Node.outParamName, context.getAttributeByParamName(Node.inParamName) + ",second");
+            return true;
+        }));
+        SysProcessNodeConfigEntity first = new SysProcessNodeConfigEntity();
+        first.setProcessCode("PROCESS_TEST");
+        first.setNodeId("firstNode");
+        first.setNodeConfig("{\"outParamName\": \"firstResult\"}");
+        SysProcessNodeConfigEntity second = new SysProcessNodeConfigEntity();
+        second.setProcessCode("PROCESS_TEST");
+        second.setNodeId("secondNode");
+        second.setNodeConfig("{\"inParamName\": \"firstResult\", \"outParamName\": \"secondResult\"}");
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(first, second));
+        ReflectionTestUtils.setField(processEngine, "releaseIntermediate", true);
+        ProcessContext context = newContext();
+        context.getRequestParams().put("id", "1");
+
+        ProcessContext result = processEngine.executeProcess("PROCESS_TEST", context);
+
+        assertTrue(result.isSuccess());
+        assertEquals("first:1,second", result.getResponseData());
+        // 请求参数不复制到中间数据中，中间数据和结果参数执行后释放
+        assertEquals(Collections.singleton("executionId"), result.getAttributes().keySet());
+    }
+
+    @Test
+    void testRequestLogCompletedAfterDetachedNode() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        nodeMap.put("detachedNode", new TestNode("detachedNode", context -> {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        SysProcessNodeConfigEntity entity = new SysProcessNodeConfigEntity();
+        entity.setProcessCode("PROCESS_TEST");
+        entity.setNodeId("detachedNode");
+        entity.setNodeName("detachedNode");
+        entity.setNodeConfig("{\"joinAt\": \"none\", \"outParamName\": \"detachedResult\"}");
+        entity.setAsyncExecution(true);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Collections.singletonList(entity));
+
+        ProcessContext result = processEngine.executeProcessAsync("PROCESS_TEST", newContext()).get(1, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        // 请求不等待的异步节点中也可能记录请求日志，节点完成后才写入请求日志和执行记录
+        verify(requestLogWriter, after(200).never()).complete(any(), any(), anyLong());
+        verify(executionJournal, never()).complete(any(), anyInt(), any(), any());
+        release.countDown();
+        verify(requestLogWriter, timeout(1000)).complete(eq("execution-1"), same(result), anyLong());
+        verify(executionJournal, timeout(1000)).complete(eq("execution-1"), eq(2), isNull(), same(result));
+    }
+
+    private static class TestNode implements Node {
+        private final String nodeId;
+        private final Predicate<ProcessContext> action;
+
+        TestNode(String nodeId, Predicate<ProcessContext> action) {
+            this.nodeId = nodeId;
+            this.action = action;
+        }
+
+        @Override
+        public boolean execute(ProcessContext context) {
+            return action.test(context);
+        }
+
+        @Override
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        @Override
+        public String getNodeName() {
+            return nodeId;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.provincialnode.processor.convert;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldMappingPlanTest {
+
+    private static final String RULES = "{\"orgCode\": \"organizationCode\", \"addressInfo\": {\"city\": \"cityName\"}}";
+
+    private static final String DATA = "{\"orgCode\": \"A1\", \"remark\": null,"
+            + " \"addressInfo\": {\"city\": \"杭州\", \"orgCode\": \"A2\"},"
+            + " \"branches\": [{\"orgCode\": \"B1\", \"city\": \"宁波\"}, null, 1]}";
+
+    @Test
+    void testCopyConvert() {
+        FieldMappingPlan plan = FieldMappingPlan.compile(RULES);
+        JSONObject source = JSON.parseObject(DATA);
+
+        JSONObject target = (JSONObject) plan.convert(source);
+
+        assertEquals("A1", target.get("organizationCode"));
+        assertTrue(target.containsKey("remark"));
+        assertNull(target.get("remark"));
+        // 嵌套规则只作用于addressInfo，并继承上层重命名规则
+        assertEquals("杭州", target.getJSONObject("addressInfo").get("cityName"));
+        assertEquals("A2", target.getJSONObject("addressInfo").get("organizationCode"));
+        JSONArray branches = target.getJSONArray("branches");
+        assertEquals("B1", branches.getJSONObject(0).get("organizationCode"));
+        assertEquals("宁波", branches.getJSONObject(0).get("city"));
+        assertNull(branches.get(1));
+        assertEquals(1, branches.get(2));
+        // 源数据不变
+        assertEquals("A1", source.get("orgCode"));
+        assertFalse(source.containsKey("organizationCode"));
+    }
+
+    @Test
+    void testInPlaceConvert() {
+        FieldMappingPlan plan = FieldMappingPlan.compile(RULES);
+        JSONObject source = JSON.parseObject(DATA);
+        Object addressInfo = source.get("addressInfo");
+
+        plan.convertInPlace(source);
+
+        assertEquals("A1", source.get("organizationCode"));
+        assertFalse(source.containsKey("orgCode"));
+        assertSame(addressInfo, source.get("addressInfo"));
+        assertEquals("杭州", source.getJSONObject("addressInfo").get("cityName"));
+        assertEquals("B1", source.getJSONArray("branches").getJSONObject(0).get("organizationCode"));
+    }
+
+    @Test
+    void testChainedRenames() {
+        FieldMappingPlan plan = FieldMappingPlan.compile("{\"a\": \"b\", \"b\": \"c\"}");
+        Map<String, Object> source = new HashMap<>();
+        source.put("a", 1);
+        source.put("b", 2);
+
+        assertEquals(JSON.parseObject("{\"b\": 1, \"c\": 2}"), new JSONObject(castMap(plan.convert(source))));
+        plan.convertInPlace(source);
+        assertEquals(JSON.parseObject("{\"b\": 1, \"c\": 2}"), new JSONObject(source));
+    }
+
+    @Test
+    void testStreamConvert() throws Exception {
+        FieldMappingPlan plan = FieldMappingPlan.compile(RULES);
+
+        String converted = plan.convertJson(DATA.replace("\"remark\": null", "\"amount\": 12345678901234567.10"));
+
+        assertTrue(converted.contains("\"amount\":12345678901234567.10"));
+        assertEquals(plan.convert(JSON.parseObject(DATA.replace("\"remark\": null", "\"amount\": 1"))),
+                JSON.parseObject(converted.replace("12345678901234567.10", "1")));
+        assertThrows(IOException.class, () -> plan.convertJson("{\"orgCode\": "));
+    }
+
+    @Test
+    void testEmptyRules() {
+        assertTrue(FieldMappingPlan.compile("{}").isEmpty());
+        assertTrue(FieldMappingPlan.compile("{\"a\": \"a\"}").isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -235,7 +236,7 @@ class EnhancedParamValidateNodeTest {
     void testJsonStringValidation() {
         // 准备测试数据
         Map<String, Object> requestParams = new HashMap<>();
-        requestParams.put("jsonData", "{\"user\":{\"name\":\"张三\",\"age\":25}}}");
+        requestParams.put("jsonData", "{\"user\":{\"name\":\"张三\",\"age\":25}}");
         
         // 构建JSON字符串验证规则
         List<Map<String, Object>> rules = new ArrayList<>();
@@ -327,4 +328,44 @@ class EnhancedParamValidateNodeTest {
         assertFalse(result);
         verify(context).markFailure(ResultCode.PARAM_ERROR.getCode(), "参数 jsonData JSON格式错误");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCollectAllErrors() {
+        // 准备测试数据 - 两个字段都为空
+        Map<String, Object> requestParams = new HashMap<>();
+        requestParams.put("orgCode", null);
+        requestParams.put("orgName", null);
+
+        List<Map<String, Object>> rules = new ArrayList<>();
+        for (String paramPath : Arrays.asList("orgCode", "orgName")) {
+            Map<String, Object> fieldRule = new HashMap<>();
+            fieldRule.put("paramPath", paramPath);
+            Map<String, Object> requiredRule = new HashMap<>();
+            requiredRule.put("type", "required");
+            requiredRule.put("config", true);
+            fieldRule.put("rules", Collections.singletonList(requiredRule));
+            rules.add(fieldRule);
+        }
+
+        Map<String, Object> nodeConfig = new HashMap<>();
+        nodeConfig.put("validateRules", JSON.toJSONString(rules));
+        nodeConfig.put("collectAllErrors", true);
+        ReflectionTestUtils.setField(node, "maxErrors", 20);
+
+        // 设置上下文
+        when(context.getAttribute(Node.nodeConfig)).thenReturn(nodeConfig);
+        when(context.getAttributeByParamName(Node.inParamName)).thenReturn(requestParams);
+
+        // 模拟验证失败
+        when(requiredValidator.validate(null, true)).thenReturn(false);
+        when(requiredValidator.getErrorMessage(anyString(), any(), any()))
+                .thenAnswer(invocation -> "参数 " + invocation.getArgument(0) + " 不能为空");
+
+        // 执行测试
+        boolean result = node.execute(context);
+
+        // 验证结果 - 一次返回全部错误
+        assertFalse(result);
+        verify(context).markFailure(ResultCode.PARAM_ERROR.getCode(), "参数 orgCode 不能为空；参数 orgName 不能为空");
+    }
+}
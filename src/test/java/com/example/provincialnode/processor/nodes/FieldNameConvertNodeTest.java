@@ -0,0 +1,75 @@
+package com.example.provincialnode.processor.nodes;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.example.provincialnode.common.ResultCode;
+import com.example.provincialnode.processor.Node;
+import com.example.provincialnode.processor.context.ProcessContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FieldNameConvertNodeTest {
+
+    private static final String RULES = "{\"orgCode\": \"organizationCode\", \"addressInfo\": {\"city\": \"cityName\"}}";
+
+    private final FieldNameConvertNode node = new FieldNameConvertNode();
+
+    private ProcessContext context;
+
+    private Map<String, Object> nodeConfig;
+
+    @BeforeEach
+    void setUp() {
+        context = mock(ProcessContext.class);
+        when(context.getRequestId()).thenReturn("test-request-id");
+        nodeConfig = new HashMap<>();
+        nodeConfig.put("convertRules", RULES);
+        nodeConfig.put("convertMode", "stream");
+        when(context.getAttribute(Node.nodeConfig)).thenReturn(nodeConfig);
+    }
+
+    @Test
+    void testStreamConvertDataSource() {
+        Map<String, Object> sourceData = new HashMap<>();
+        sourceData.put("data", "{\"orgCode\": \"A1\", \"addressInfo\": {\"city\": \"杭州\"}, \"items\": [{\"orgCode\": \"B1\"}]}");
+        sourceData.put("orgCode", "OUTER");
+        nodeConfig.put("dataSource", "data");
+        when(context.getAttributeByParamName(Node.inParamName)).thenReturn(sourceData);
+
+        assertTrue(node.execute(context));
+
+        Map<?, ?> result = captureOutput();
+        // 只转换dataSource指定的字段，其他字段和输入数据不变
+        assertEquals("OUTER", result.get("orgCode"));
+        assertNotSame(sourceData, result);
+        assertTrue(((String) sourceData.get("data")).contains("\"orgCode\""));
+        JSONObject converted = JSON.parseObject((String) result.get("data"));
+        assertEquals("A1", converted.get("organizationCode"));
+        assertFalse(converted.containsKey("orgCode"));
+        assertEquals("杭州", converted.getJSONObject("addressInfo").get("cityName"));
+        assertEquals("B1", converted.getJSONArray("items").getJSONObject(0).get("organizationCode"));
+    }
+
+    @Test
+    void testStreamConvertWithoutDataSource() {
+        when(context.getAttributeByParamName(Node.inParamName)).thenReturn(new HashMap<>());
+
+        assertFalse(node.execute(context));
+        verify(context).markFailure(eq(ResultCode.SYSTEM_ERROR.getCode()), anyString());
+        verify(context, never()).setAttributeByParamName(eq(Node.outParamName), any());
+    }
+
+    private Map<?, ?> captureOutput() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(context).setAttributeByParamName(eq(Node.outParamName), captor.capture());
+        return (Map<?, ?>) captor.getValue();
+    }
+}
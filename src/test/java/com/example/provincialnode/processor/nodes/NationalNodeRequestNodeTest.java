@@ -0,0 +1,166 @@
+package com.example.provincialnode.processor.nodes;
+
+import com.example.provincialnode.common.ResultCode;
+import com.example.provincialnode.common.trace.Tracer;
+import com.example.provincialnode.config.NationalNodeConfig;
+import com.example.provincialnode.config.NationalNodeHttpClientConfig;
+import com.example.provincialnode.processor.Node;
+import com.example.provincialnode.processor.context.ProcessContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NationalNodeRequestNodeTest {
+
+    private static final String SUCCESS_RESPONSE = "{\"success\": true, \"C-Response-Code\": \"000000\", \"C-Response-Desc\": \"成功\","
+            + " \"timestamp\": \"20240101120000\", \"key\": \"k\", \"signatureData\": \"s\", \"data\": \"d\"}";
+
+    private HttpServer server;
+
+    private CloseableHttpAsyncClient asyncClient;
+
+    private ExecutorService responseExecutor;
+
+    private NationalNodeConfig nationalNodeConfig;
+
+    private NationalNodeRequestNode node;
+
+    private ProcessContext context;
+
+    // 处理响应结果的线程
+    private final AtomicReference<String> resultThread = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/ok", exchange -> respond(exchange, 200, SUCCESS_RESPONSE));
+        server.createContext("/api/error", exchange -> respond(exchange, 500, "error"));
+        server.start();
+
+        nationalNodeConfig = new NationalNodeConfig();
+        nationalNodeConfig.setNationalNodeUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api");
+        nationalNodeConfig.setConnectTimeout(1000);
+        nationalNodeConfig.setReadTimeout(2000);
+        nationalNodeConfig.setHttpPoolMaxTotal(4);
+        nationalNodeConfig.setHttpPoolMaxPerRoute(4);
+        nationalNodeConfig.setHttpPoolConnectionRequestTimeout(1000);
+        nationalNodeConfig.setHttpPoolKeepAlive(1000);
+        nationalNodeConfig.setToken("national-token");
+        NationalNodeHttpClientConfig clientConfig = new NationalNodeHttpClientConfig();
+        asyncClient = clientConfig.nationalNodeAsyncHttpClient(
+                clientConfig.nationalNodeAsyncConnectionManager(nationalNodeConfig), nationalNodeConfig);
+        responseExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-national-node-response"));
+
+        node = new NationalNodeRequestNode();
+        ReflectionTestUtils.setField(node, "nationalNodeConfig", nationalNodeConfig);
+        ReflectionTestUtils.setField(node, "nationalNodeAsyncHttpClient", asyncClient);
+        ReflectionTestUtils.setField(node, "nationalNodeResponseExecutor", responseExecutor);
+        ReflectionTestUtils.setField(node, "tracer", new Tracer());
+
+        context = mock(ProcessContext.class);
+        when(context.getRequestId()).thenReturn("test-request-id");
+        Map<String, Object> requestParams = new HashMap<>();
+        requestParams.put("enterpriseName", "测试企业");
+        when(context.getAttributeByParamName(Node.inParamName)).thenReturn(requestParams);
+        when(context.getAttribute("selfPublicKey")).thenReturn("provincial-public-key");
+        doAnswer(invocation -> {
+            resultThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(context).setAttributeByParamName(eq(Node.outParamName), any());
+        doAnswer(invocation -> {
+            resultThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(context).markFailure(anyString(), anyString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        asyncClient.close();
+        responseExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSuccessResponse() throws Exception {
+        when(context.getInterfacePath()).thenReturn("ok");
+
+        assertTrue(node.executeAsync(context).get(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(context).setAttributeByParamName(eq(Node.outParamName), captor.capture());
+        Map<String, Object> cityNodeResponse = (Map<String, Object>) captor.getValue();
+        assertEquals("00", cityNodeResponse.get("C-API-Status"));
+        assertEquals("d", ((Map<String, Object>) cityNodeResponse.get("C-Response-Body")).get("data"));
+        // 响应在响应处理执行器中解析，不占用IO线程
+        assertEquals("test-national-node-response", resultThread.get());
+    }
+
+    @Test
+    void testNonOkStatus() throws Exception {
+        when(context.getInterfacePath()).thenReturn("error");
+
+        assertFalse(node.executeAsync(context).get(5, TimeUnit.SECONDS));
+
+        verify(context).markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点返回空结果");
+        verify(context, never()).setAttributeByParamName(eq(Node.outParamName), any());
+        assertEquals("test-national-node-response", resultThread.get());
+    }
+
+    @Test
+    void testConnectionFailure() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        nationalNodeConfig.setNationalNodeUrl("http://127.0.0.1:" + closedPort + "/api");
+        when(context.getInterfacePath()).thenReturn("ok");
+
+        assertFalse(node.executeAsync(context).get(5, TimeUnit.SECONDS));
+
+        verify(context).markFailure(ResultCode.NATIONAL_NODE_ERROR.getCode(), "全国节点请求异常");
+        assertEquals("test-national-node-response", resultThread.get());
+    }
+
+    @Test
+    void testResponseExecutorRejected() {
+        responseExecutor.shutdownNow();
+        when(context.getInterfacePath()).thenReturn("ok");
+
+        // 执行器拒绝时不在IO线程中处理响应，结果以异常完成
+        ExecutionException e = assertThrows(ExecutionException.class, () -> node.executeAsync(context).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertNull(resultThread.get());
+    }
+}
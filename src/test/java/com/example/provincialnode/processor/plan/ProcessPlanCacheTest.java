@@ -0,0 +1,297 @@
+package com.example.provincialnode.processor.plan;
+
+import com.example.provincialnode.entity.SysProcessNodeConfigEntity;
+import com.example.provincialnode.processor.Node;
+import com.example.provincialnode.processor.nodes.FieldNameConvertNode;
+import com.example.provincialnode.processor.nodes.VerifyNode;
+import com.example.provincialnode.service.SysProcessNodeConfigService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProcessPlanCacheTest {
+
+    @Mock
+    private SysProcessNodeConfigService processNodeConfigService;
+
+    @Mock
+    private Node verifyNode;
+
+    @Mock
+    private Node tokenValidateNode;
+
+    @InjectMocks
+    private ProcessPlanCache processPlanCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Map<String, Node> nodeMap = new HashMap<>();
+        nodeMap.put("verifyNode", verifyNode);
+        nodeMap.put("tokenValidateNode", tokenValidateNode);
+        for (String nodeId : Arrays.asList("verifyNode1", "logRecordNode", "nationalNode", "verifyNode2", "signatureNode2", "auditNode")) {
+            nodeMap.put(nodeId, verifyNode);
+        }
+        when(tokenValidateNode.isBarrier()).thenReturn(true);
+        ReflectionTestUtils.setField(processPlanCache, "nodeMap", nodeMap);
+    }
+
+    private SysProcessNodeConfigEntity nodeConfig(String nodeId, String config, String retryConfig) {
+        SysProcessNodeConfigEntity entity = new SysProcessNodeConfigEntity();
+        entity.setProcessCode("PROCESS_TEST");
+        entity.setNodeId(nodeId);
+        entity.setNodeName(nodeId);
+        entity.setNodeConfig(config);
+        entity.setRetryConfig(retryConfig);
+        return entity;
+    }
+
+    @Test
+    void testCompilePlan() {
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("verifyNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"verifyResult1\", \"side\": \"city\"}",
+                        "{\"maxRetryCount\": 3, \"initialDelay\": 1000, \"multiplier\": 2.0}"),
+                nodeConfig("unknownNode", null, null)
+        ));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+
+        assertEquals(2, plan.getNodes().size());
+        PlanNode first = plan.getNodes().get(0);
+        assertSame(verifyNode, first.getNode());
+        assertEquals("requestData", first.getInParamName());
+        assertEquals("verifyResult1", first.getOutParamName());
+        assertEquals("city", first.getNodeConfig().get(Node.side));
+        assertEquals(3, first.getRetryConfig().getMaxRetryCount());
+        assertEquals(2000, first.getRetryConfig().getDelayMs(2));
+
+        PlanNode second = plan.getNodes().get(1);
+        assertNull(second.getNode());
+        assertEquals(Node.requestParams, second.getInParamName());
+        assertEquals(Node.responseData, second.getOutParamName());
+        assertSame(RetryConfig.NONE, second.getRetryConfig());
+        assertEquals(Node.responseData, plan.getResponseParamName());
+        assertThrows(UnsupportedOperationException.class, () -> first.getNodeConfig().put("side", "national"));
+    }
+
+    @Test
+    void testNodeConfigCompiledWithPlan() {
+        Node validateNode = mock(Node.class);
+        Object ruleTree = new Object();
+        when(validateNode.compileConfig(anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> config = invocation.getArgument(0);
+            if ("([a-z".equals(config.get("validateRules"))) {
+                throw new IllegalArgumentException("参数 code 的regex校验规则无效");
+            }
+            return ruleTree;
+        });
+        nodeMap().put("paramValidateNode", validateNode);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("paramValidateNode", "{\"validateRules\": \"[]\", \"outParamName\": \"result1\"}", null),
+                nodeConfig("paramValidateNode", "{\"validateRules\": \"([a-z\", \"outParamName\": \"result2\"}", null)
+        ));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+        processPlanCache.getPlan("PROCESS_TEST");
+
+        // 节点配置随流程计划编译一次，编译结果作为节点视图的只读属性
+        PlanNode valid = plan.getNodes().get(0);
+        assertSame(ruleTree, valid.getCompiledConfig());
+        assertSame(ruleTree, valid.getScope().get(Node.compiledConfig));
+        assertNull(valid.getConfigError());
+        PlanNode invalid = plan.getNodes().get(1);
+        assertNull(invalid.getCompiledConfig());
+        assertEquals("参数 code 的regex校验规则无效", invalid.getConfigError());
+        verify(validateNode, times(2)).compileConfig(anyMap());
+    }
+
+    @Test
+    void testPlanIsCachedUntilRefresh() {
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(
+                Collections.singletonList(nodeConfig("verifyNode", "{\"outParamName\": \"verifyResult1\"}", null)));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+        assertSame(plan, processPlanCache.getPlan("PROCESS_TEST"));
+        verify(processNodeConfigService, times(1)).getEnabledNodesByProcessCode("PROCESS_TEST");
+
+        processPlanCache.refresh("PROCESS_TEST");
+        ProcessPlan refreshed = processPlanCache.getPlan("PROCESS_TEST");
+        assertNotSame(plan, refreshed);
+        assertEquals("verifyResult1", refreshed.getResponseParamName());
+        verify(processNodeConfigService, times(2)).getEnabledNodesByProcessCode("PROCESS_TEST");
+    }
+
+    @Test
+    void testStagesDerivedFromParamNames() {
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("tokenValidateNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"tokenValidateResult\"}", null),
+                nodeConfig("verifyNode1", "{\"inParamName\": \"requestData\", \"outParamName\": \"verifyResult1\"}", null),
+                nodeConfig("logRecordNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"logRecordResult\"}", null),
+                nodeConfig("nationalNode", "{\"inParamName\": \"verifyResult1\", \"outParamName\": \"nationalResponse\"}", null),
+                nodeConfig("verifyNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"verifyResult2\"}", null),
+                nodeConfig("signatureNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"signedData2\"}", null),
+                nodeConfig("auditNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"auditResult\", \"dependsOn\": [\"verifyNode1\"]}", null)
+        ));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+        List<List<PlanNode>> stages = plan.getStages();
+
+        assertEquals(4, stages.size());
+        assertEquals(Collections.singletonList("tokenValidateResult"), outParamNames(stages.get(0)));
+        assertEquals(Arrays.asList("verifyResult1", "logRecordResult"), outParamNames(stages.get(1)));
+        assertEquals(Arrays.asList("nationalResponse", "auditResult"), outParamNames(stages.get(2)));
+        assertEquals(Arrays.asList("verifyResult2", "signedData2"), outParamNames(stages.get(3)));
+        assertEquals(7, plan.getSequentialStages().size());
+    }
+
+    @Test
+    void testVerifyNodeGatesLaterNodes() {
+        Node verify = new VerifyNode();
+        Map<String, Node> nodeMap = new HashMap<>();
+        nodeMap.put("tokenValidateNode", tokenValidateNode);
+        nodeMap.put("verifyNode1", verify);
+        nodeMap.put("verifyNode2", verify);
+        for (String nodeId : Arrays.asList("paramValidateNode", "logRecordNode", "signatureNode1", "nationalNode", "signatureNode2")) {
+            nodeMap.put(nodeId, mock(Node.class));
+        }
+        ReflectionTestUtils.setField(processPlanCache, "nodeMap", nodeMap);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("tokenValidateNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"tokenValidateResult\"}", null),
+                nodeConfig("verifyNode1", "{\"inParamName\": \"requestData\", \"outParamName\": \"verifyResult1\"}", null),
+                nodeConfig("paramValidateNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"paramValidateResult\"}", null),
+                nodeConfig("logRecordNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"logRecordResult\"}", null),
+                nodeConfig("signatureNode1", "{\"inParamName\": \"requestData\", \"outParamName\": \"signedData1\"}", null),
+                nodeConfig("nationalNode", "{\"inParamName\": \"signedData1\", \"outParamName\": \"nationalResponse\"}", null),
+                nodeConfig("verifyNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"verifyResult2\"}", null),
+                nodeConfig("signatureNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"signedData2\"}", null)
+        ));
+
+        List<List<PlanNode>> stages = processPlanCache.getPlan("PROCESS_TEST").getStages();
+
+        // 验签节点之后的节点在验签完成后才执行，互不依赖的节点仍并行执行
+        assertEquals(6, stages.size());
+        assertEquals(Collections.singletonList("verifyResult1"), outParamNames(stages.get(1)));
+        assertEquals(Arrays.asList("paramValidateResult", "logRecordResult", "signedData1"), outParamNames(stages.get(2)));
+        assertEquals(Collections.singletonList("verifyResult2"), outParamNames(stages.get(4)));
+        assertEquals(Collections.singletonList("signedData2"), outParamNames(stages.get(5)));
+    }
+
+    @Test
+    void testWriteAfterReadIsOrdered() {
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("verifyNode", "{\"inParamName\": \"data\", \"outParamName\": \"result1\"}", null),
+                nodeConfig("verifyNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"data\"}", null)
+        ));
+
+        List<List<PlanNode>> stages = processPlanCache.getPlan("PROCESS_TEST").getStages();
+
+        assertEquals(2, stages.size());
+        assertEquals(Collections.singletonList("data"), outParamNames(stages.get(1)));
+    }
+
+    @Test
+    void testInPlaceConvertIsOrderedWithReaders() {
+        nodeMap().put("fieldNameConvertNode", new FieldNameConvertNode());
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("nationalNode", "{\"outParamName\": \"nationalResponse\"}", null),
+                nodeConfig("logRecordNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"logRecordResult\"}", null),
+                nodeConfig("fieldNameConvertNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"convertedResponse\","
+                        + " \"convertRules\": \"{}\", \"convertMode\": \"inPlace\"}", null),
+                nodeConfig("auditNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"auditResult\"}", null)
+        ));
+
+        List<List<PlanNode>> stages = processPlanCache.getPlan("PROCESS_TEST").getStages();
+
+        // 原地转换视为写入nationalResponse：在之前的读取者之后、之后的读取者之前执行
+        assertEquals(4, stages.size());
+        assertEquals(Collections.singletonList("logRecordResult"), outParamNames(stages.get(1)));
+        assertEquals(Collections.singletonList("convertedResponse"), outParamNames(stages.get(2)));
+        assertEquals(Collections.singletonList("auditResult"), outParamNames(stages.get(3)));
+    }
+
+    @Test
+    void testCopyConvertRunsWithReaders() {
+        nodeMap().put("fieldNameConvertNode", new FieldNameConvertNode());
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("nationalNode", "{\"outParamName\": \"nationalResponse\"}", null),
+                nodeConfig("logRecordNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"logRecordResult\"}", null),
+                nodeConfig("fieldNameConvertNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"convertedResponse\","
+                        + " \"convertRules\": \"{}\"}", null)
+        ));
+
+        List<List<PlanNode>> stages = processPlanCache.getPlan("PROCESS_TEST").getStages();
+
+        assertEquals(2, stages.size());
+        assertEquals(Arrays.asList("logRecordResult", "convertedResponse"), outParamNames(stages.get(1)));
+    }
+
+    @Test
+    void testAsyncJoinPoints() {
+        SysProcessNodeConfigEntity nationalNode = nodeConfig("nationalNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"nationalResponse\", \"timeoutMs\": 3000}", null);
+        nationalNode.setAsyncExecution(true);
+        SysProcessNodeConfigEntity logRecordNode = nodeConfig("logRecordNode", "{\"inParamName\": \"requestData\", \"outParamName\": \"logRecordResult\", \"joinAt\": \"none\"}", null);
+        logRecordNode.setAsyncExecution(true);
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nationalNode,
+                logRecordNode,
+                nodeConfig("verifyNode1", "{\"inParamName\": \"requestData\", \"outParamName\": \"verifyResult1\"}", null),
+                nodeConfig("verifyNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"verifyResult2\"}", null)
+        ));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+        PlanNode national = plan.getNodes().get(0);
+        PlanNode logRecord = plan.getNodes().get(1);
+
+        assertEquals("verifyNode2", national.getJoinAt());
+        assertEquals(3000, national.getTimeoutMs());
+        assertFalse(national.isDetached());
+        assertTrue(logRecord.isDetached());
+        assertEquals(2, plan.getStages().size());
+        assertEquals(Collections.singletonList("verifyResult2"), outParamNames(plan.getStages().get(1)));
+    }
+
+    @Test
+    void testReleasePoints() {
+        when(processNodeConfigService.getEnabledNodesByProcessCode("PROCESS_TEST")).thenReturn(Arrays.asList(
+                nodeConfig("verifyNode1", "{\"outParamName\": \"verifyResult1\"}", null),
+                nodeConfig("nationalNode", "{\"inParamName\": \"verifyResult1\", \"outParamName\": \"nationalResponse\"}", null),
+                nodeConfig("auditNode", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"auditResult\", \"dependsOn\": [\"verifyNode1\"]}", null),
+                nodeConfig("verifyNode2", "{\"inParamName\": \"nationalResponse\", \"outParamName\": \"verifyResult2\"}", null)
+        ));
+
+        ProcessPlan plan = processPlanCache.getPlan("PROCESS_TEST");
+        List<List<String>> releases = plan.getReleases(true);
+
+        assertEquals(3, releases.size());
+        assertTrue(releases.get(0).isEmpty());
+        assertTrue(releases.get(1).isEmpty());
+        // 通过dependsOn声明依赖verifyNode1的节点也视为读取其输出；结果参数不在阶段完成后释放
+        assertEquals(new HashSet<>(Arrays.asList("verifyResult1", "nationalResponse", "auditResult")), new HashSet<>(releases.get(2)));
+        assertTrue(plan.isResponseReleasable());
+        // 顺序执行时按节点顺序释放
+        assertEquals(4, plan.getReleases(false).size());
+        assertEquals(new HashSet<>(Arrays.asList("verifyResult1", "auditResult")), new HashSet<>(plan.getReleases(false).get(2)));
+        assertEquals(Collections.singletonList("nationalResponse"), plan.getReleases(false).get(3));
+    }
+
+    private static List<String> outParamNames(List<PlanNode> stage) {
+        List<String> names = new ArrayList<>();
+        for (PlanNode node : stage) {
+            names.add(node.getOutParamName());
+        }
+        return names;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Node> nodeMap() {
+        return (Map<String, Node>) ReflectionTestUtils.getField(processPlanCache, "nodeMap");
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.provincialnode.processor.validator;
+
+import com.alibaba.fastjson.JSON;
+import com.example.provincialnode.processor.validator.impl.DataTypeValidator;
+import com.example.provincialnode.processor.validator.impl.RegexValidator;
+import com.example.provincialnode.processor.validator.impl.RequiredValidator;
+import com.example.provincialnode.processor.validator.impl.StringLengthValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationRuleTreeTest {
+
+    private final RegexValidator regexValidator = new RegexValidator();
+
+    private final ParamValidatorFactory validatorFactory = new ParamValidatorFactory(Arrays.asList(
+            new RequiredValidator(), new DataTypeValidator(), regexValidator, new StringLengthValidator()));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(regexValidator, "cacheSize", 16L);
+        ReflectionTestUtils.setField(regexValidator, "riskyTimeoutMs", 50L);
+        regexValidator.init();
+    }
+
+    private static final String RULES = "[{\"paramName\": \"idCard\", \"rules\": [{\"type\": \"required\", \"config\": true},"
+            + " {\"type\": \"regex\", \"config\": \"^\\\\d{17}[\\\\dXx]$\"}]},"
+            + " {\"paramPath\": \"applicant.items\", \"rules\": [{\"type\": \"dataType\", \"config\": \"array\", \"nestedRules\": ["
+            + "   {\"paramName\": \"code\", \"rules\": [{\"type\": \"required\", \"config\": true}]}]}]}]";
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> params(String json) {
+        return JSON.parseObject(json, Map.class);
+    }
+
+    @Test
+    void testCompiledRulesAreReusable() {
+        ValidationRuleTree ruleTree = ValidationRuleTree.compile(RULES, validatorFactory);
+
+        assertNull(ruleTree.validate(params("{\"idCard\": \"11010519491231002X\", \"applicant\": {\"items\": [{\"code\": \"A\"}]}}")));
+        assertEquals("参数 idCard 格式不正确", ruleTree.validate(params("{\"idCard\": \"123\"}")));
+        assertEquals("参数 applicant.items[1].code 不能为空",
+                ruleTree.validate(params("{\"idCard\": \"11010519491231002X\", \"applicant\": {\"items\": [{\"code\": \"A\"}, {}]}}")));
+    }
+
+    @Test
+    void testValidateAllCollectsErrorsInOnePass() {
+        ValidationRuleTree ruleTree = ValidationRuleTree.compile(RULES, validatorFactory);
+        Map<String, Object> params = params("{\"idCard\": \"123\", \"applicant\": {\"items\": [{}, {\"code\": \"A\"}, {}]}}");
+
+        assertEquals(Arrays.asList("参数 idCard 格式不正确", "参数 applicant.items[0].code 不能为空", "参数 applicant.items[2].code 不能为空"),
+                ruleTree.validateAll(params, 20));
+        assertEquals(Arrays.asList("参数 idCard 格式不正确", "参数 applicant.items[0].code 不能为空"), ruleTree.validateAll(params, 2));
+        assertEquals("参数 idCard 格式不正确", ruleTree.validate(params));
+        assertTrue(ruleTree.validateAll(params("{\"idCard\": \"11010519491231002X\"}"), 20).isEmpty());
+    }
+
+    @Test
+    void testInvalidRegexRejectedAtCompileTime() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> ValidationRuleTree.compile(
+                "[{\"paramName\": \"code\", \"rules\": [{\"type\": \"regex\", \"config\": \"([a-z\"}]}]", validatorFactory));
+        assertTrue(e.getMessage().startsWith("参数 code 的regex校验规则无效"));
+    }
+
+    @Test
+    void testRegexMatchIsTimeBounded() {
+        ValidationRuleTree ruleTree = ValidationRuleTree.compile("[{\"paramName\": \"code\", \"rules\": ["
+                + "{\"type\": \"regex\", \"config\": {\"pattern\": \"^(\\\\1?a)+b$\", \"timeoutMs\": 20}}]}]", validatorFactory);
+
+        assertNull(ruleTree.validate(params("{\"code\": \"aaab\"}")));
+        long start = System.nanoTime();
+        assertEquals("参数 code 格式不正确", ruleTree.validate(params("{\"code\": \"" + "aaaaaaaaaa".repeat(6) + "!\"}")));
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertEquals(1, regexValidator.getTimeoutCount());
+    }
+
+    @Test
+    void testNestedQuantifierUsesRiskyTimeout() {
+        ValidationRuleTree ruleTree = ValidationRuleTree.compile(
+                "[{\"paramName\": \"code\", \"rules\": [{\"type\": \"regex\", \"config\": \"^(a+)+$\"}]}]", validatorFactory);
+
+        assertNull(ruleTree.validate(params("{\"code\": \"aaaa\"}")));
+        assertEquals("参数 code 格式不正确", ruleTree.validate(params("{\"code\": \"aaab\"}")));
+        assertEquals(0, regexValidator.getTimeoutCount());
+    }
+
+    @Test
+    void testEmptyRules() {
+        assertTrue(ValidationRuleTree.compile("[]", validatorFactory).isEmpty());
+        assertTrue(ValidationRuleTree.compile("[{\"rules\": [{\"type\": \"required\"}]}]", validatorFactory).isEmpty());
+    }
+}
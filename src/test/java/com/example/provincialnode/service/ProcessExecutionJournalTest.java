@@ -0,0 +1,107 @@
+package com.example.provincialnode.service;
+
+import com.example.provincialnode.entity.SysProcessExecutionRecordEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProcessExecutionJournalTest {
+
+    @Mock
+    private SysProcessExecutionRecordService processExecutionRecordService;
+
+    @InjectMocks
+    private ProcessExecutionJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(journal, "mode", "sync-on-failure");
+        ReflectionTestUtils.setField(journal, "batchSize", 50);
+        ReflectionTestUtils.setField(journal, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(journal, "queueCapacity", 100);
+        journal.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.stop();
+    }
+
+    @Test
+    void testFailedExecutionIsWrittenSynchronously() {
+        SysProcessExecutionRecordEntity record = journal.begin("PROCESS_TEST", "TEST", "appKey", "req-1");
+        journal.nodeStarted(record.getExecutionId(), "verifyNode");
+        journal.complete(record.getExecutionId(), 3, "签名验证失败", new ProcessContext());
+
+        ArgumentCaptor<SysProcessExecutionRecordEntity> captor = ArgumentCaptor.forClass(SysProcessExecutionRecordEntity.class);
+        verify(processExecutionRecordService).save(captor.capture());
+        SysProcessExecutionRecordEntity saved = captor.getValue();
+        assertEquals(3, saved.getStatus());
+        assertEquals("verifyNode", saved.getCurrentNodeId());
+        assertEquals("签名验证失败", saved.getErrorMessage());
+        assertNotNull(saved.getEndTime());
+        assertNotNull(saved.getExecutionContext());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testSyncWriteFailureIsRetriedInBackground() {
+        doThrow(new IllegalStateException("database unavailable")).when(processExecutionRecordService).save(any());
+        SysProcessExecutionRecordEntity record = journal.begin("PROCESS_TEST", "TEST", "appKey", "req-3");
+
+        // 写入失败不影响请求完成
+        assertDoesNotThrow(() -> journal.complete(record.getExecutionId(), 3, "签名验证失败", new ProcessContext()));
+        assertSame(record, journal.getByExecutionId(record.getExecutionId()));
+
+        verify(processExecutionRecordService, timeout(2000)).saveBatch(argThat((Collection<SysProcessExecutionRecordEntity> batch) ->
+                batch.size() == 1 && batch.iterator().next() == record), eq(50));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testSuccessfulExecutionIsWrittenInBatch() {
+        SysProcessExecutionRecordEntity record = journal.begin("PROCESS_TEST", "TEST", "appKey", "req-2");
+        journal.complete(record.getExecutionId(), 2, null, new ProcessContext());
+
+        verify(processExecutionRecordService, timeout(2000)).saveBatch(argThat((Collection<SysProcessExecutionRecordEntity> batch) ->
+                batch.size() == 1 && batch.iterator().next().getStatus() == 2), eq(50));
+        verify(processExecutionRecordService, never()).save(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testStopWritesUnfinishedExecutionAsFailed() {
+        SysProcessExecutionRecordEntity record = journal.begin("PROCESS_TEST", "TEST", "appKey", "req-4");
+        journal.nodeStarted(record.getExecutionId(), "nationalNodeRequestNode");
+
+        journal.stop();
+
+        verify(processExecutionRecordService).saveBatch(argThat((Collection<SysProcessExecutionRecordEntity> batch) ->
+                batch.size() == 1 && batch.iterator().next().getStatus() == 3), eq(50));
+        assertEquals("nationalNodeRequestNode", record.getCurrentNodeId());
+        assertNotNull(record.getEndTime());
+        // 已写入的执行不再重复写入
+        journal.complete(record.getExecutionId(), 2, null, new ProcessContext());
+        verify(processExecutionRecordService, never()).save(any());
+    }
+
+    @Test
+    void testPendingRecordIsVisibleBeforeFlush() {
+        SysProcessExecutionRecordEntity record = journal.begin("PROCESS_TEST", "TEST", "appKey", "req-3");
+        assertSame(record, journal.getByExecutionId(record.getExecutionId()));
+        verify(processExecutionRecordService, never()).getByExecutionId(anyString());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.provincialnode.service;
+
+import cn.hutool.crypto.SmUtil;
+import cn.hutool.crypto.asymmetric.SM2;
+import com.example.provincialnode.common.CacheInvalidationEvent;
+import com.example.provincialnode.entity.SysAccessOrganizationEntity;
+import com.example.provincialnode.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProvincialIdentityTest {
+
+    private ProvincialIdentity identity;
+
+    private SysAccessOrganizationService organizationService;
+
+    @BeforeEach
+    void setUp() {
+        organizationService = mock(SysAccessOrganizationService.class);
+        identity = new ProvincialIdentity();
+        ReflectionTestUtils.setField(identity, "sysAccessOrganizationService", organizationService);
+        ReflectionTestUtils.setField(identity, "retryIntervalMs", 30000L);
+    }
+
+    private static SysAccessOrganizationEntity self(SM2 keyPair) {
+        SysAccessOrganizationEntity self = new SysAccessOrganizationEntity();
+        self.setAppKey(ProvincialIdentity.SELF_APP_KEY);
+        self.setPublicKey(keyPair.getPublicKeyBase64());
+        self.setPrivateKey(keyPair.getPrivateKeyBase64());
+        return self;
+    }
+
+    @Test
+    void testKeysLoadedOnce() {
+        SM2 keyPair = SmUtil.sm2();
+        when(organizationService.selectByAppKeyFromDb("self")).thenReturn(self(keyPair));
+
+        // 启动时加载
+        identity.init();
+        verify(organizationService, times(1)).selectByAppKeyFromDb("self");
+
+        assertEquals(keyPair.getPublicKeyBase64(), identity.getPublicKey());
+        assertEquals(keyPair.getPrivateKeyBase64(), identity.getPrivateKey());
+        assertEquals(keyPair.getPublicKeyBase64(), identity.getPublicKey());
+
+        verify(organizationService, times(1)).selectByAppKeyFromDb("self");
+    }
+
+    @Test
+    void testRotationSwapsKeysAndKeepsOldOnFailure() {
+        SM2 oldKeyPair = SmUtil.sm2();
+        SM2 newKeyPair = SmUtil.sm2();
+        when(organizationService.selectByAppKeyFromDb("self")).thenReturn(self(oldKeyPair), self(newKeyPair), null);
+        assertEquals(oldKeyPair.getPublicKeyBase64(), identity.getPublicKey());
+
+        // 其他机构变更不触发重新加载
+        identity.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.ACCESS_ORG, "city"));
+        assertEquals(oldKeyPair.getPublicKeyBase64(), identity.getPublicKey());
+
+        identity.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.ACCESS_ORG, "self"));
+        assertEquals(newKeyPair.getPublicKeyBase64(), identity.getPublicKey());
+        assertEquals(newKeyPair.getPrivateKeyBase64(), identity.getPrivateKey());
+
+        // 重新加载失败时保留原密钥
+        identity.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.ACCESS_ORG, null));
+        assertEquals(newKeyPair.getPublicKeyBase64(), identity.getPublicKey());
+    }
+
+    @Test
+    void testLoadFailureIsRemembered() {
+        SM2 keyPair = SmUtil.sm2();
+        when(organizationService.selectByAppKeyFromDb("self")).thenReturn(null, self(keyPair));
+
+        // 启动加载失败不阻止启动
+        assertDoesNotThrow(() -> identity.init());
+
+        // 重试间隔内的请求直接失败，不再查询数据库
+        for (int i = 0; i < 5; i++) {
+            BusinessException e = assertThrows(BusinessException.class, () -> identity.getPrivateKey());
+            assertEquals("未配置省级节点自身密钥", e.getMessage());
+        }
+        verify(organizationService, times(1)).selectByAppKeyFromDb("self");
+
+        // 超过重试间隔后重新加载
+        ReflectionTestUtils.setField(identity, "retryIntervalMs", 0L);
+        assertEquals(keyPair.getPrivateKeyBase64(), identity.getPrivateKey());
+        verify(organizationService, times(2)).selectByAppKeyFromDb("self");
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.provincialnode.service;
+
+import com.example.provincialnode.entity.SysRequestLogEntity;
+import com.example.provincialnode.processor.context.ProcessContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RequestLogWriterTest {
+
+    @Mock
+    private SysRequestLogService sysRequestLogService;
+
+    @InjectMocks
+    private RequestLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(writer, "batchSize", 50);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 1);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", "drop");
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 10L);
+        ReflectionTestUtils.setField(writer, "openTimeoutMs", 60000L);
+        ReflectionTestUtils.setField(writer, "maxOpen", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    private static SysRequestLogEntity requestLog(String requestId) {
+        SysRequestLogEntity requestLog = new SysRequestLogEntity();
+        requestLog.setRequestId(requestId);
+        return requestLog;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLogIsWrittenInBackgroundWithSerializedParams() {
+        writer.start();
+        Map<String, Object> params = new HashMap<>();
+        Map<String, Object> user = new HashMap<>();
+        user.put("name", "张三");
+        params.put("user", user);
+        SysRequestLogEntity requestLog = requestLog("req-1");
+
+        assertTrue(writer.submit(requestLog, params));
+        assertNotNull(requestLog.getId());
+        // 提交后修改参数（包括嵌套对象）不影响日志内容
+        params.put("extra", "value");
+        user.put("name", "李四");
+
+        ArgumentCaptor<Collection<SysRequestLogEntity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(sysRequestLogService, timeout(1000)).saveBatch(captor.capture(), eq(50));
+        SysRequestLogEntity written = captor.getValue().iterator().next();
+        assertEquals("{\"user\":{\"name\":\"张三\"}}", written.getRequestParams());
+        verify(sysRequestLogService, never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLogIsWrittenOnceWithFinalValues() {
+        writer.start();
+        SysRequestLogEntity requestLog = requestLog("req-1");
+        requestLog.setStatus(1);
+        writer.begin("execution-1", requestLog, new HashMap<>());
+        assertEquals(0, writer.getPendingCount());
+
+        ProcessContext context = new ProcessContext();
+        context.markFailure("1001", "系统内部错误");
+        writer.complete("execution-1", context, 35L);
+        // 已经完成的执行不会重复写入
+        writer.complete("execution-1", context, 40L);
+
+        ArgumentCaptor<Collection<SysRequestLogEntity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(sysRequestLogService, timeout(1000)).saveBatch(captor.capture(), eq(50));
+        SysRequestLogEntity written = captor.getValue().iterator().next();
+        assertEquals(0, written.getStatus());
+        assertEquals("系统内部错误", written.getErrorMessage());
+        assertEquals(35L, written.getProcessingTime());
+        assertNotNull(written.getResponseTime());
+        verify(sysRequestLogService, never()).updateById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnfinishedLogIsWrittenAfterTimeout() {
+        ReflectionTestUtils.setField(writer, "openTimeoutMs", 50L);
+        writer.start();
+        SysRequestLogEntity requestLog = requestLog("req-1");
+        requestLog.setStatus(1);
+        writer.begin("execution-1", requestLog, new HashMap<>());
+
+        ArgumentCaptor<Collection<SysRequestLogEntity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(sysRequestLogService, timeout(3000)).saveBatch(captor.capture(), eq(50));
+        SysRequestLogEntity written = captor.getValue().iterator().next();
+        assertEquals(0, written.getStatus());
+        assertEquals("流程未在规定时间内结束", written.getErrorMessage());
+        // 超时写入后流程结束不再重复写入
+        writer.complete("execution-1", new ProcessContext(), 35L);
+        verify(sysRequestLogService, after(200).times(1)).saveBatch(anyCollection(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStopWritesUnfinishedLogs() {
+        writer.start();
+        writer.begin("execution-1", requestLog("req-1"), new HashMap<>());
+
+        writer.stop();
+
+        ArgumentCaptor<Collection<SysRequestLogEntity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(sysRequestLogService).saveBatch(captor.capture(), eq(50));
+        SysRequestLogEntity written = captor.getValue().iterator().next();
+        assertEquals("req-1", written.getRequestId());
+        assertEquals(0, written.getStatus());
+    }
+
+    @Test
+    void testFullQueueDropsLog() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sysRequestLogService.saveBatch(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(writer, "meterRegistry", meterRegistry);
+        writer.start();
+
+        assertTrue(writer.submit(requestLog("req-1"), null));
+        assertTrue(writing.await(1, TimeUnit.SECONDS));
+        // 写入线程阻塞时，第二条占满队列，第三条被丢弃
+        assertTrue(writer.submit(requestLog("req-2"), null));
+        assertFalse(writer.submit(requestLog("req-3"), null));
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(1, writer.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("request.log.dropped").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("request.log.overflow").functionCounter().count());
+
+        release.countDown();
+        verify(sysRequestLogService, timeout(1000).times(2)).saveBatch(anyCollection(), anyInt());
+    }
+}
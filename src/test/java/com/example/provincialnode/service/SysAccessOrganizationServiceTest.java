@@ -0,0 +1,103 @@
+package com.example.provincialnode.service;
+
+import com.example.provincialnode.common.CacheService;
+import com.example.provincialnode.entity.SysAccessOrganizationEntity;
+import com.example.provincialnode.mapper.SysAccessOrganizationMapper;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SysAccessOrganizationServiceTest {
+
+    private SysAccessOrganizationService service;
+
+    private CacheService cacheService;
+
+    private SysAccessOrganizationMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = mock(CacheService.class);
+        mapper = mock(SysAccessOrganizationMapper.class);
+        service = new SysAccessOrganizationService();
+        ReflectionTestUtils.setField(service, "cacheService", cacheService);
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+        ReflectionTestUtils.setField(service, "maximumSize", 100L);
+        ReflectionTestUtils.setField(service, "expireAfterWrite", 600L);
+        ReflectionTestUtils.setField(service, "refreshAfterWrite", 60L);
+        ReflectionTestUtils.setField(service, "redisTtl", 3600L);
+        service.initCache();
+    }
+
+    private static SysAccessOrganizationEntity org(String appKey) {
+        SysAccessOrganizationEntity org = new SysAccessOrganizationEntity();
+        org.setAppKey(appKey);
+        org.setPublicKey("publicKey-" + appKey);
+        return org;
+    }
+
+    @Test
+    void testRedisHitIsCachedLocally() {
+        when(cacheService.get("access_org:app_key:city", SysAccessOrganizationEntity.class)).thenReturn(org("city"));
+
+        assertEquals("publicKey-city", service.selectByAppKey("city").getPublicKey());
+        assertEquals("publicKey-city", service.selectByAppKey("city").getPublicKey());
+
+        verify(cacheService, times(1)).get("access_org:app_key:city", SysAccessOrganizationEntity.class);
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    void testDatabaseFallbackWritesRedis() {
+        when(cacheService.get(anyString(), eq(SysAccessOrganizationEntity.class))).thenThrow(new IllegalStateException("redis down"));
+        SysAccessOrganizationEntity org = org("city");
+        when(mapper.selectOne(any())).thenReturn(org);
+
+        assertSame(org, service.selectByAppKey("city"));
+        verify(cacheService).set("access_org:app_key:city", org, 3600L, TimeUnit.SECONDS);
+
+        service.evictLocalCache("city");
+        service.selectByAppKey("city");
+        verify(mapper, times(2)).selectOne(any());
+    }
+
+    @Test
+    void testMissingAppKeyIsCachedLocally() {
+        assertNull(service.selectByAppKey("unknown"));
+        assertNull(service.selectByAppKey("unknown"));
+
+        verify(mapper, times(1)).selectOne(any());
+        verify(cacheService, never()).set(anyString(), any(), anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefreshLoadsFromDatabase() throws Exception {
+        when(cacheService.get("access_org:app_key:city", SysAccessOrganizationEntity.class)).thenReturn(org("city"));
+        assertEquals("publicKey-city", service.selectByAppKey("city").getPublicKey());
+        SysAccessOrganizationEntity updated = org("city");
+        updated.setPublicKey("publicKey-new");
+        when(mapper.selectOne(any())).thenReturn(updated, (SysAccessOrganizationEntity) null);
+
+        // 刷新不读取Redis中的旧值，直接查询数据库并写回Redis
+        LoadingCache<String, Object> localCache = (LoadingCache<String, Object>) ReflectionTestUtils.getField(service, "localCache");
+        localCache.refresh("city");
+        verify(cacheService, timeout(1000)).set("access_org:app_key:city", updated, 3600L, TimeUnit.SECONDS);
+        for (int i = 0; i < 100 && !"publicKey-new".equals(service.selectByAppKey("city").getPublicKey()); i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals("publicKey-new", service.selectByAppKey("city").getPublicKey());
+        verify(cacheService, times(1)).get("access_org:app_key:city", SysAccessOrganizationEntity.class);
+
+        // 数据库中已删除时清除Redis中的旧值
+        localCache.refresh("city");
+        verify(cacheService, timeout(1000)).delete("access_org:app_key:city");
+    }
+}
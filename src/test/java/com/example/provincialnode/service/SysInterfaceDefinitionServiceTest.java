@@ -0,0 +1,89 @@
+package com.example.provincialnode.service;
+
+import com.example.provincialnode.common.CacheInvalidationEvent;
+import com.example.provincialnode.entity.SysInterfaceDefinitionEntity;
+import com.example.provincialnode.mapper.SysInterfaceDefinitionMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SysInterfaceDefinitionServiceTest {
+
+    private SysInterfaceDefinitionService service;
+
+    private SysInterfaceDefinitionMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(SysInterfaceDefinitionMapper.class);
+        service = new SysInterfaceDefinitionService();
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+    }
+
+    private static SysInterfaceDefinitionEntity definition(String interfaceCode, String requestPath) {
+        SysInterfaceDefinitionEntity definition = new SysInterfaceDefinitionEntity();
+        definition.setInterfaceCode(interfaceCode);
+        definition.setRequestPath(requestPath);
+        definition.setStatus(1);
+        return definition;
+    }
+
+    @Test
+    void testLookupUsesRouteTable() {
+        when(mapper.selectList(any())).thenReturn(Arrays.asList(
+                definition("QUERY_ENTERPRISE_INFO", "/api/query"),
+                definition("SUBMIT_APPLICATION", "/api/submit")));
+
+        assertEquals("QUERY_ENTERPRISE_INFO", service.findByRequestPath("/api/query").getInterfaceCode());
+        assertEquals("SUBMIT_APPLICATION", service.findByRequestPath("/api/submit").getInterfaceCode());
+        assertNull(service.findByRequestPath("/api/unknown"));
+        assertNull(service.findByRequestPath("/wp-login.php"));
+
+        verify(mapper, times(1)).selectList(any());
+        verify(mapper, never()).selectOne(any());
+    }
+
+    @Test
+    void testRouteRefreshedOnChange() {
+        when(mapper.selectList(any())).thenReturn(Arrays.asList(definition("QUERY_ENTERPRISE_INFO", "/api/query")));
+        service.reloadRoutes();
+        when(mapper.selectOne(any())).thenReturn(definition("NEW_INTERFACE", "/api/new"));
+
+        service.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.INTERFACE_DEFINITION, "/api/new"));
+
+        assertEquals("NEW_INTERFACE", service.findByRequestPath("/api/new").getInterfaceCode());
+        assertEquals("QUERY_ENTERPRISE_INFO", service.findByRequestPath("/api/query").getInterfaceCode());
+
+        when(mapper.selectOne(any())).thenReturn(null);
+        service.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.INTERFACE_DEFINITION, "/api/query"));
+        assertNull(service.findByRequestPath("/api/query"));
+    }
+
+    @Test
+    void testRouteMovedToNewPath() {
+        when(mapper.selectList(any())).thenReturn(Arrays.asList(
+                definition("QUERY_ENTERPRISE_INFO", "/api/query"),
+                definition("SUBMIT_APPLICATION", "/api/submit")));
+        service.reloadRoutes();
+
+        // 按新路径刷新，移除同一接口的旧路径
+        when(mapper.selectOne(any())).thenReturn(definition("QUERY_ENTERPRISE_INFO", "/api/v2/query"));
+        service.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.INTERFACE_DEFINITION, "/api/v2/query"));
+        assertEquals("QUERY_ENTERPRISE_INFO", service.findByRequestPath("/api/v2/query").getInterfaceCode());
+        assertNull(service.findByRequestPath("/api/query"));
+
+        // 按旧路径刷新，旧路径查不到时按接口编码加入新路径
+        when(mapper.selectOne(any())).thenReturn(null, definition("SUBMIT_APPLICATION", "/api/v2/submit"));
+        service.onCacheInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.CacheType.INTERFACE_DEFINITION, "/api/submit"));
+        assertNull(service.findByRequestPath("/api/submit"));
+        assertEquals("SUBMIT_APPLICATION", service.findByRequestPath("/api/v2/submit").getInterfaceCode());
+        assertEquals("QUERY_ENTERPRISE_INFO", service.findByRequestPath("/api/v2/query").getInterfaceCode());
+        verify(mapper, times(1)).selectList(any());
+    }
+}